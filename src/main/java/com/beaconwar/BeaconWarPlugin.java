@@ -10,6 +10,7 @@ import com.beaconwar.listeners.BeaconChangeListener;
 import com.beaconwar.listeners.CommandBlockListener;
 import com.beaconwar.listeners.DeathListener;
 import com.beaconwar.listeners.PlayerConnectionListener;
+import com.beaconwar.listeners.TerritoryListener;
 
 public class BeaconWarPlugin extends JavaPlugin {
     
@@ -42,6 +43,7 @@ public class BeaconWarPlugin extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new CommandBlockListener(this), this);
         getServer().getPluginManager().registerEvents(new DeathListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
+        getServer().getPluginManager().registerEvents(new TerritoryListener(this), this);
         
         // Start the game tick task (runs every tick = 20 times per second)
         getServer().getScheduler().runTaskTimer(this, () -> {
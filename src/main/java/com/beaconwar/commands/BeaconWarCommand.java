@@ -103,7 +103,7 @@ public class BeaconWarCommand implements CommandExecutor, TabCompleter {
                             .append(Component.text("You don't have permission!", NamedTextColor.YELLOW)));
             return;
                 }
-                gameManager.setupBeacons(player);
+                gameManager.setupBeacons(player, null);
             }
             
     private void handleStart(Player player, GameManager gameManager, String[] args) {
@@ -142,7 +142,7 @@ public class BeaconWarCommand implements CommandExecutor, TabCompleter {
                     .append(Component.text("You don't have permission!", NamedTextColor.YELLOW)));
             return;
         }
-        gameManager.resetGame();
+        gameManager.resetGame(player);
     }
             
     private void handleEnd(Player player, GameManager gameManager) {
@@ -160,6 +160,12 @@ public class BeaconWarCommand implements CommandExecutor, TabCompleter {
         
         TeamColor winner = gameManager.determineWinner();
         gameManager.endGame(winner);
+        
+        // A GameEndEvent handler may have kept the game running
+        if (gameManager.isGameActive()) {
+            player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                    .append(Component.text("Ending the game was cancelled by another plugin.", NamedTextColor.YELLOW)));
+        }
     }
     
     private void handlePause(Player player, GameManager gameManager) {
@@ -351,12 +357,16 @@ public class BeaconWarCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.AQUA)
                 .append(Component.text("Starting quicklaunch...", NamedTextColor.GREEN)));
         
-        if (!gameManager.setupBeacons(player)) {
+        // Setup builds over several ticks; the rest of quicklaunch runs once it is done
+        final boolean manualTeams = manual;
+        final int gameMinutes = minutes;
+        if (!gameManager.setupBeacons(player, () -> continueQuicklaunch(player, gameManager, manualTeams, gameMinutes))) {
             player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
                     .append(Component.text("Quicklaunch failed: could not setup beacons!", NamedTextColor.YELLOW)));
-            return;
         }
-        
+    }
+    
+    private void continueQuicklaunch(Player player, GameManager gameManager, boolean manual, int gameMinutes) {
         // Step 2: Balance teams (unless manual mode)
         List<Player> onlinePlayers = new ArrayList<>(Bukkit.getOnlinePlayers());
         if (!manual) {
@@ -415,7 +425,6 @@ public class BeaconWarCommand implements CommandExecutor, TabCompleter {
         }
         
         // Step 4: 10-second countdown, then start and kill all
-        final int gameMinutes = minutes;
         startCountdown(gameManager, 10, gameMinutes);
     }
     
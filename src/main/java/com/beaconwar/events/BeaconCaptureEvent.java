@@ -0,0 +1,59 @@
+package com.beaconwar.events;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.beaconwar.model.Beacon;
+import com.beaconwar.model.TeamColor;
+
+/**
+ * Fired when a glass change at a beacon passes the capture rules, before the new owner
+ * is recorded and announced. Cancelling reverts the glass to the previous owner.
+ */
+public class BeaconCaptureEvent extends Event implements Cancellable {
+    
+    private static final HandlerList HANDLERS = new HandlerList();
+    
+    private final Beacon beacon;
+    private final TeamColor previousOwner;
+    private final TeamColor newOwner;
+    private boolean cancelled = false;
+    
+    public BeaconCaptureEvent(Beacon beacon, TeamColor previousOwner, TeamColor newOwner) {
+        this.beacon = beacon;
+        this.previousOwner = previousOwner;
+        this.newOwner = newOwner;
+    }
+    
+    public Beacon getBeacon() {
+        return beacon;
+    }
+    
+    public TeamColor getPreviousOwner() {
+        return previousOwner;
+    }
+    
+    public TeamColor getNewOwner() {
+        return newOwner;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+    
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,93 @@
+package com.beaconwar.events;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.beaconwar.model.Beacon;
+import com.beaconwar.model.TeamColor;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * Fired when a capture attempt is about to be undone and the glass put back.
+ * Cancelling lets the attempted owner stand (it is then recorded as a normal capture).
+ */
+public class BeaconCaptureRevertEvent extends Event implements Cancellable {
+    
+    private static final HandlerList HANDLERS = new HandlerList();
+    
+    public enum Reason {
+        /** Captures are locked during the mining phase */
+        MINING_PHASE,
+        /** The capture broke the adjacency rules */
+        INVALID_CAPTURE,
+        /** A plugin cancelled the BeaconCaptureEvent */
+        CAPTURE_CANCELLED
+    }
+    
+    private final Beacon beacon;
+    private final TeamColor attemptedOwner;
+    private final Reason reason;
+    private Component message;
+    private boolean cancelled = false;
+    
+    public BeaconCaptureRevertEvent(Beacon beacon, TeamColor attemptedOwner, Reason reason, Component message) {
+        this.beacon = beacon;
+        this.attemptedOwner = attemptedOwner;
+        this.reason = reason;
+        this.message = message;
+    }
+    
+    public Beacon getBeacon() {
+        return beacon;
+    }
+    
+    /**
+     * The owner the glass was changed to
+     */
+    public TeamColor getAttemptedOwner() {
+        return attemptedOwner;
+    }
+    
+    /**
+     * The owner the beacon is reverted to
+     */
+    public TeamColor getRestoredOwner() {
+        return beacon.getPreviousOwner();
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+    
+    /**
+     * Message sent to players near the beacon, or null for none
+     */
+    public Component getMessage() {
+        return message;
+    }
+    
+    public void setMessage(Component message) {
+        this.message = message;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+    
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
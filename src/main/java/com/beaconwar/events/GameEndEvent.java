@@ -0,0 +1,59 @@
+package com.beaconwar.events;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.beaconwar.model.TeamColor;
+
+/**
+ * Fired when a game is about to end, either with a result (victory, tie, time up)
+ * or because an admin stopped it. Cancelling a result keeps the game running;
+ * admin stops cannot be cancelled.
+ */
+public class GameEndEvent extends Event implements Cancellable {
+    
+    private static final HandlerList HANDLERS = new HandlerList();
+    
+    private final TeamColor winner;
+    private final boolean stopped;
+    private boolean cancelled = false;
+    
+    public GameEndEvent(TeamColor winner, boolean stopped) {
+        this.winner = winner;
+        this.stopped = stopped;
+    }
+    
+    /**
+     * The winning team (NEUTRAL = tie or admin stop)
+     */
+    public TeamColor getWinner() {
+        return winner;
+    }
+    
+    /**
+     * True if an admin stopped the game without a result
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = !stopped && cancelled;
+    }
+    
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,52 @@
+package com.beaconwar.events;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import com.beaconwar.game.GamePhase;
+
+/**
+ * Fired when the phase timer runs out, before the phase switches.
+ * Cancelling keeps the current phase for another full phase duration.
+ */
+public class GamePhaseChangeEvent extends Event implements Cancellable {
+    
+    private static final HandlerList HANDLERS = new HandlerList();
+    
+    private final GamePhase from;
+    private final GamePhase to;
+    private boolean cancelled = false;
+    
+    public GamePhaseChangeEvent(GamePhase from, GamePhase to) {
+        this.from = from;
+        this.to = to;
+    }
+    
+    public GamePhase getFrom() {
+        return from;
+    }
+    
+    public GamePhase getTo() {
+        return to;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+    
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
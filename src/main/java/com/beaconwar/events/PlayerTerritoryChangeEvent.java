@@ -0,0 +1,57 @@
+package com.beaconwar.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+import com.beaconwar.game.TerritoryManager;
+import com.beaconwar.model.TeamColor;
+
+/**
+ * Fired when a player crosses a territory boundary, either by moving
+ * or because a capture moved the frontier past them.
+ */
+public class PlayerTerritoryChangeEvent extends PlayerEvent {
+    
+    private static final HandlerList HANDLERS = new HandlerList();
+    
+    private final int fromMask;
+    private final int toMask;
+    
+    public PlayerTerritoryChangeEvent(Player player, int fromMask, int toMask) {
+        super(player);
+        this.fromMask = fromMask;
+        this.toMask = toMask;
+    }
+    
+    /**
+     * Territory the player was in (RED if red and blue territory overlapped)
+     */
+    public TeamColor getFrom() {
+        return TerritoryManager.primaryTerritory(fromMask);
+    }
+    
+    /**
+     * Territory the player is now in (RED if red and blue territory overlap)
+     */
+    public TeamColor getTo() {
+        return TerritoryManager.primaryTerritory(toMask);
+    }
+    
+    public boolean wasInTerritory(TeamColor team) {
+        return (fromMask & TerritoryManager.teamBit(team)) != 0;
+    }
+    
+    public boolean isInTerritory(TeamColor team) {
+        return (toMask & TerritoryManager.teamBit(team)) != 0;
+    }
+    
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
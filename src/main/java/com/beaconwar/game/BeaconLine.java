@@ -0,0 +1,178 @@
+package com.beaconwar.game;
+
+import java.util.List;
+
+import com.beaconwar.model.Beacon;
+
+/**
+ * Precomputed polyline through the actual beacon positions (X/Z plane), ordered by index.
+ * Fallback placement can bend the line in Z, so positions are projected onto the real
+ * segments instead of being interpolated on X alone.
+ *
+ * Projection is O(log n) (binary search on X, which always increases with index)
+ * and allocation-free.
+ */
+public class BeaconLine {
+    
+    private final int[] indices;
+    private final double[] xs;
+    private final double[] zs;
+    
+    // Per segment i (point i -> point i+1): unit direction and length
+    private final double[] dirX;
+    private final double[] dirZ;
+    private final double[] lengths;
+    
+    // Arc length from the first point to point i
+    private final double[] cumulative;
+    
+    /**
+     * @param sortedBeacons Beacons sorted by index
+     */
+    public BeaconLine(List<Beacon> sortedBeacons) {
+        int n = sortedBeacons.size();
+        indices = new int[n];
+        xs = new double[n];
+        zs = new double[n];
+        cumulative = new double[n];
+        
+        int segments = Math.max(0, n - 1);
+        dirX = new double[segments];
+        dirZ = new double[segments];
+        lengths = new double[segments];
+        
+        for (int i = 0; i < n; i++) {
+            Beacon beacon = sortedBeacons.get(i);
+            indices[i] = beacon.getIndex();
+            xs[i] = beacon.getX() + 0.5;
+            zs[i] = beacon.getZ() + 0.5;
+        }
+        
+        for (int i = 0; i < segments; i++) {
+            double dx = xs[i + 1] - xs[i];
+            double dz = zs[i + 1] - zs[i];
+            double length = Math.sqrt(dx * dx + dz * dz);
+            lengths[i] = length;
+            dirX[i] = length > 0 ? dx / length : 1;
+            dirZ[i] = length > 0 ? dz / length : 0;
+            cumulative[i + 1] = cumulative[i] + length;
+        }
+    }
+    
+    /**
+     * Project a position onto the line.
+     * @return Arc length along the line, measured from the lowest-index beacon.
+     *         Extrapolated (negative or past the end) beyond the end beacons.
+     */
+    public double project(double x, double z) {
+        int n = xs.length;
+        if (n < 2) {
+            return 0;
+        }
+        
+        int segment = findSegmentByX(x);
+        
+        // Near a bend the closest segment can be a neighbour of the X-bracketing one
+        double bestArc = 0;
+        double bestDistanceSquared = Double.POSITIVE_INFINITY;
+        for (int i = Math.max(0, segment - 1); i <= Math.min(n - 2, segment + 1); i++) {
+            double relX = x - xs[i];
+            double relZ = z - zs[i];
+            double t = relX * dirX[i] + relZ * dirZ[i];
+            
+            // Clamp to the segment, except past the two ends of the line
+            if (t < 0 && i > 0) {
+                t = 0;
+            } else if (t > lengths[i] && i < n - 2) {
+                t = lengths[i];
+            }
+            
+            double offX = relX - t * dirX[i];
+            double offZ = relZ - t * dirZ[i];
+            double distanceSquared = offX * offX + offZ * offZ;
+            if (distanceSquared < bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                bestArc = cumulative[i] + t;
+            }
+        }
+        return bestArc;
+    }
+    
+    /**
+     * Convert an arc length into an interpolated beacon index (e.g. 1.5 = halfway between beacon 1 and 2)
+     */
+    public double indexAt(double arc) {
+        int n = indices.length;
+        if (n == 0) {
+            return 0;
+        }
+        if (n == 1) {
+            return indices[0];
+        }
+        
+        int segment = findSegmentByArc(arc);
+        double length = lengths[segment];
+        double t = length > 0 ? (arc - cumulative[segment]) / length : 0;
+        return indices[segment] + t * (indices[segment + 1] - indices[segment]);
+    }
+    
+    /**
+     * Interpolated beacon index of a position projected onto the line
+     */
+    public double getBeaconIndexPosition(double x, double z) {
+        return indexAt(project(x, z));
+    }
+    
+    /**
+     * Arc length of the beacon with the given index, or NaN if it is not on the line
+     */
+    public double arcOfBeacon(int beaconIndex) {
+        int lo = 0;
+        int hi = indices.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (indices[mid] < beaconIndex) {
+                lo = mid + 1;
+            } else if (indices[mid] > beaconIndex) {
+                hi = mid - 1;
+            } else {
+                return cumulative[mid];
+            }
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Segment whose X range contains x (clamped to the first/last segment)
+     */
+    private int findSegmentByX(double x) {
+        int lo = 0;
+        int hi = xs.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (xs[mid] <= x) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+    
+    /**
+     * Segment whose arc range contains arc (clamped to the first/last segment)
+     */
+    private int findSegmentByArc(double arc) {
+        int lo = 0;
+        int hi = cumulative.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (cumulative[mid] <= arc) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+}
@@ -1,33 +1,95 @@
 package com.beaconwar.game;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.LongSupplier;
 
-import org.bukkit.Location;
-import org.bukkit.entity.Player;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 
+import com.beaconwar.events.BeaconCaptureEvent;
+import com.beaconwar.events.BeaconCaptureRevertEvent;
 import com.beaconwar.model.Beacon;
 import com.beaconwar.model.TeamColor;
 
+import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 
 /**
  * Manages all beacons in the game.
  * Look ma, no more execute as @e[type=marker] chains!
+ * 
+ * Beacons live in a dense array indexed by (beacon index + offset). Settled ownership is
+ * mirrored in a byte array, per-team counters and per-team bitsets, all updated on each
+ * ownership change, so counts, front, neutral and adjacency queries never scan or allocate.
  */
 public class BeaconManager {
     
-    private final Map<Integer, Beacon> beacons = new HashMap<>();
-    private final List<Player> allPlayers;
+    private static final TeamColor[] TEAMS = TeamColor.values();
+    private static final byte NO_PENDING = -1;
+    
+    private final Beacon[] beacons;
+    private final byte[] owners;
+    private final int offset;
+    private final int[] teamCounts = new int[TEAMS.length];
+    private final BitSet[] ownedBy = new BitSet[TEAMS.length];
+    
+    // Bumped on every settled ownership change; derived state is memoized against it
+    private long ownershipEpoch = 0;
+    
+    // Debounce: a glass change must hold for this many ticks before it is validated
+    private int captureDebounceTicks = 20;
+    private long tickCount = 0;
+    private final byte[] pendingOwners;
+    private final long[] pendingSince;
+    
+    // Beacon by the packed position of its glass block
+    private final Map<Long, Beacon> beaconsByGlass = new HashMap<>();
+    
+    // Every protected block position (structure and glass), for event-time checks
+    private final ProtectedBlockIndex protectedBlocks = new ProtectedBlockIndex();
+    
+    // Sorted by index, for iteration
+    private final List<Beacon> beaconList = new ArrayList<>();
+    private final List<Beacon> beaconListView = Collections.unmodifiableList(beaconList);
+    
+    private final PlayerPositionSampler positionSampler;
+    
+    // Live view of online players: late joiners hear announcements, quitters are dropped
+    private final Audience everyone = Audience.audience(Bukkit.getOnlinePlayers());
     private GamePhase currentPhase = GamePhase.CAPTURING;
+    private BeaconLine beaconLine;
+    private OwnershipTimeline timeline;
+    private BeaconTopology topology;
     
-    public BeaconManager(List<Player> allPlayers) {
-        this.allPlayers = allPlayers;
+    /**
+     * @param beaconsPerSide Beacons are indexed -beaconsPerSide..beaconsPerSide
+     */
+    public BeaconManager(PlayerPositionSampler positionSampler, int beaconsPerSide) {
+        this.positionSampler = positionSampler;
+        this.offset = beaconsPerSide;
+        this.beacons = new Beacon[2 * beaconsPerSide + 1];
+        this.owners = new byte[beacons.length];
+        this.pendingOwners = new byte[beacons.length];
+        this.pendingSince = new long[beacons.length];
+        Arrays.fill(pendingOwners, NO_PENDING);
+        for (int i = 0; i < ownedBy.length; i++) {
+            ownedBy[i] = new BitSet(beacons.length);
+        }
+    }
+    
+    /**
+     * Ticks a glass change must stay put before it is validated (flickering glass is ignored)
+     */
+    public void setCaptureDebounceTicks(int ticks) {
+        this.captureDebounceTicks = Math.max(0, ticks);
     }
     
     public void setCurrentPhase(GamePhase phase) {
@@ -35,33 +97,166 @@ public class BeaconManager {
     }
     
     public void addBeacon(Beacon beacon) {
-        beacons.put(beacon.getIndex(), beacon);
+        int slot = slotOf(beacon.getIndex());
+        if (slot < 0) {
+            throw new IllegalArgumentException("Beacon index " + beacon.getIndex() + " is outside -" + offset + ".." + offset);
+        }
+        boolean replaced = beacons[slot] != null;
+        if (replaced) {
+            beaconList.remove(beacons[slot]);
+            beaconsByGlass.remove(glassKey(beacons[slot]));
+            teamCounts[owners[slot]]--;
+            ownedBy[owners[slot]].clear(slot);
+        }
+        
+        beacons[slot] = beacon;
+        beaconsByGlass.put(glassKey(beacon), beacon);
+        owners[slot] = (byte) beacon.getOwner().getId();
+        teamCounts[owners[slot]]++;
+        ownedBy[owners[slot]].set(slot);
+        ownershipEpoch++;
+        
+        int insertAt = 0;
+        while (insertAt < beaconList.size() && beaconList.get(insertAt).getIndex() < beacon.getIndex()) {
+            insertAt++;
+        }
+        beaconList.add(insertAt, beacon);
+        
+        if (replaced) {
+            protectedBlocks.clear();
+            beaconList.forEach(protectedBlocks::add);
+        } else {
+            protectedBlocks.add(beacon);
+        }
     }
     
     public Beacon getBeacon(int index) {
-        return beacons.get(index);
+        int slot = slotOf(index);
+        return slot < 0 ? null : beacons[slot];
     }
     
     public Collection<Beacon> getAllBeacons() {
-        return beacons.values();
+        return beaconListView;
     }
     
     public void clear() {
-        beacons.clear();
+        Arrays.fill(beacons, null);
+        Arrays.fill(owners, (byte) 0);
+        Arrays.fill(teamCounts, 0);
+        Arrays.fill(pendingOwners, NO_PENDING);
+        for (BitSet bits : ownedBy) {
+            bits.clear();
+        }
+        beaconList.clear();
+        beaconsByGlass.clear();
+        protectedBlocks.clear();
+        beaconLine = null;
+        timeline = null;
+        topology = null;
+        ownershipEpoch++;
+    }
+    
+    private static long glassKey(Beacon beacon) {
+        return BlockKeys.pack(beacon.getX(), beacon.getY() + 1, beacon.getZ());
+    }
+    
+    /**
+     * Get the beacon whose capture glass sits at a block position, or null
+     */
+    public Beacon getBeaconAtGlass(World world, int x, int y, int z) {
+        Beacon beacon = beaconsByGlass.get(BlockKeys.pack(x, y, z));
+        return (beacon != null && beacon.getWorld() == world) ? beacon : null;
+    }
+    
+    public ProtectedBlockIndex getProtectedBlocks() {
+        return protectedBlocks;
+    }
+    
+    private int slotOf(int index) {
+        int slot = index + offset;
+        return (slot >= 0 && slot < beacons.length) ? slot : -1;
+    }
+    
+    /**
+     * Record a settled owner, keeping counters and bitsets in sync
+     */
+    private void recordOwner(int slot, TeamColor owner) {
+        int oldId = owners[slot];
+        int newId = owner.getId();
+        if (oldId == newId) {
+            return;
+        }
+        teamCounts[oldId]--;
+        ownedBy[oldId].clear(slot);
+        teamCounts[newId]++;
+        ownedBy[newId].set(slot);
+        owners[slot] = (byte) newId;
+        ownershipEpoch++;
+        
+        if (timeline != null) {
+            timeline.record(slot - offset, owner);
+        }
+    }
+    
+    /**
+     * Start recording ownership changes from the current owners (game start)
+     * @param clock Game clock in milliseconds (pauses excluded)
+     */
+    public OwnershipTimeline startTimeline(LongSupplier clock) {
+        timeline = new OwnershipTimeline(clock, owners, offset);
+        return timeline;
+    }
+    
+    /**
+     * Ownership history of the current game, or null before the game starts
+     */
+    public OwnershipTimeline getTimeline() {
+        return timeline;
+    }
+    
+    /**
+     * Counter that moves whenever any beacon's settled owner changes.
+     * Compare against a stored value (or use {@link EpochMemo}) to skip recomputing derived state.
+     */
+    public long getOwnershipEpoch() {
+        return ownershipEpoch;
     }
     
     /**
      * Update all beacon ownership based on glass blocks
+     * @return true if any beacon changed hands (a capture was accepted)
      */
-    public void updateAllBeaconOwnership() {
-        for (Beacon beacon : beacons.values()) {
+    public boolean updateAllBeaconOwnership() {
+        tickCount++;
+        boolean changed = false;
+        for (Beacon beacon : beaconList) {
             beacon.updateOwnerFromGlass();
+            int slot = slotOf(beacon.getIndex());
             
-            // If ownership changed, validate it
-            if (beacon.hasOwnerChanged()) {
-                validateCapture(beacon);
+            // Glass flicked back before settling: nothing to validate, announce or revert
+            if (!beacon.hasOwnerChanged()) {
+                pendingOwners[slot] = NO_PENDING;
+                continue;
+            }
+            
+            // Wait for the glass to hold still for the debounce window
+            byte glassOwner = (byte) beacon.getOwner().getId();
+            if (pendingOwners[slot] != glassOwner) {
+                pendingOwners[slot] = glassOwner;
+                pendingSince[slot] = tickCount;
+            }
+            if (tickCount - pendingSince[slot] < captureDebounceTicks) {
+                continue;
+            }
+            pendingOwners[slot] = NO_PENDING;
+            
+            // Settled - validate once, with one announcement
+            if (validateCapture(beacon)) {
+                recordOwner(slot, beacon.getOwner());
+                changed = true;
             }
         }
+        return changed;
     }
     
     /**
@@ -70,41 +265,46 @@ public class BeaconManager {
      * - Cannot capture during mining period
      * - Can only capture if an adjacent beacon is owned by your team
      * This replaces all that cursed scoreboard math!
+     * @return true if the capture was accepted
      */
-    private void validateCapture(Beacon beacon) {
+    private boolean validateCapture(Beacon beacon) {
         TeamColor newOwner = beacon.getOwner();
-        TeamColor previousOwner = beacon.getPreviousOwner();
         
         // Reject any capture during mining period
         if (currentPhase == GamePhase.MINING) {
-            revertCapture(beacon, "Cannot capture beacons during Mining Period!");
-            return;
-        }
-        
-        int index = beacon.getIndex();
-        Beacon leftBeacon = beacons.get(index - 1);
-        Beacon rightBeacon = beacons.get(index + 1);
-        
-        boolean valid = true;
-
-        // Neutral captures: need to have red on right and blue on left
-        // Other captures are always allowed
-        if (newOwner == TeamColor.NEUTRAL) {
-            if (leftBeacon != null && leftBeacon.getOwner() != TeamColor.BLUE) {
-                valid = false;
+            if (revertCapture(beacon, BeaconCaptureRevertEvent.Reason.MINING_PHASE, 
+                    "Cannot capture beacons during Mining Period!")) {
+                return false;
+            }
+        } else {
+            if (topology == null) {
+                buildTopology(List.of());
             }
-            if (rightBeacon != null && rightBeacon.getOwner() != TeamColor.RED) {
-                valid = false;
+            
+            // Neutral captures: every blue-side neighbour must be blue and every red-side one red
+            // Other captures are always allowed
+            boolean valid = newOwner != TeamColor.NEUTRAL || topology.isFlankedBy(slotOf(beacon.getIndex()), 
+                    ownedBy[TeamColor.BLUE.getId()], ownedBy[TeamColor.RED.getId()]);
+            
+            if (!valid) {
+                if (revertCapture(beacon, BeaconCaptureRevertEvent.Reason.INVALID_CAPTURE, 
+                        "Cannot capture beacon " + beacon.getIndex() + ": invalid capture!")) {
+                    return false;
+                }
+            } else {
+                // Let other plugins veto a legal capture
+                BeaconCaptureEvent event = new BeaconCaptureEvent(beacon, beacon.getPreviousOwner(), newOwner);
+                Bukkit.getPluginManager().callEvent(event);
+                if (event.isCancelled() && revertCapture(beacon, BeaconCaptureRevertEvent.Reason.CAPTURE_CANCELLED, null)) {
+                    return false;
+                }
             }
         }
         
-        if (valid) {
-            announceCapture(beacon);
-            //set previousOwner to current owner
-            beacon.setPreviousOwner(newOwner);
-        } else {
-            revertCapture(beacon, "Cannot capture beacon " + beacon.getIndex() + ": invalid capture!");
-        }
+        announceCapture(beacon);
+        //set previousOwner to current owner
+        beacon.setPreviousOwner(newOwner);
+        return true;
     }
     
     private void announceCapture(Beacon beacon) {
@@ -115,53 +315,76 @@ public class BeaconManager {
                         beacon.getOwner().getChatColor()))
                 .append(Component.text("!", beacon.getOwner().getChatColor()));
         
-        allPlayers.forEach(p -> p.sendMessage(message));
+        everyone.sendMessage(message);
     }
     
-    private void revertCapture(Beacon beacon, String reason) {
-        beacon.revertGlass();
-        
-        Component message = Component.text("[Beacon War] ", NamedTextColor.RED)
+    /**
+     * Put the glass back unless a BeaconCaptureRevertEvent handler cancels the revert
+     * @param reason Message for nearby players, or null for none
+     * @return true if the capture was reverted
+     */
+    private boolean revertCapture(Beacon beacon, BeaconCaptureRevertEvent.Reason cause, String reason) {
+        Component message = reason == null ? null : Component.text("[Beacon War] ", NamedTextColor.RED)
                 .append(Component.text(reason, NamedTextColor.YELLOW));
         
-        // Notify nearby players
-        Location loc = beacon.getLocation();
-        allPlayers.stream()
-                .filter(p -> p.getWorld().equals(loc.getWorld()))
-                .filter(p -> p.getLocation().distance(loc) <= 20)
-                .forEach(p -> p.sendMessage(message));
+        BeaconCaptureRevertEvent event = new BeaconCaptureRevertEvent(beacon, beacon.getOwner(), cause, message);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return false;
+        }
+        
+        beacon.revertGlass();
+        
+        // Notify nearby players (positions from this tick's sample)
+        Component notice = event.getMessage();
+        if (notice != null) {
+            positionSampler.forEachNearby(beacon.getWorld(), beacon.getX(), beacon.getY(), beacon.getZ(), 20, 
+                    p -> p.sendMessage(notice));
+        }
+        return true;
     }
     
     /**
-     * Count how many beacons each team controls
+     * Count how many beacons a team controls (maintained incrementally)
      */
-    public Map<TeamColor, Integer> getTeamCounts() {
-        Map<TeamColor, Integer> counts = new HashMap<>();
-        counts.put(TeamColor.RED, 0);
-        counts.put(TeamColor.BLUE, 0);
-        counts.put(TeamColor.NEUTRAL, 0);
-        
-        for (Beacon beacon : beacons.values()) {
-            TeamColor owner = beacon.getOwner();
-            counts.put(owner, counts.get(owner) + 1);
-        }
-        
-        return counts;
+    public int getTeamCount(TeamColor team) {
+        return teamCounts[team.getId()];
+    }
+    
+    /**
+     * Total number of beacons in the game
+     */
+    public int getBeaconCount() {
+        return beaconList.size();
+    }
+    
+    /**
+     * The settled owner of a beacon. Unlike Beacon.getOwner(), this ignores glass changes
+     * still inside the debounce window.
+     */
+    public TeamColor getSettledOwner(Beacon beacon) {
+        return TEAMS[owners[slotOf(beacon.getIndex())]];
+    }
+    
+    /**
+     * Check whether the beacon at an index is (settled as) owned by a team
+     */
+    public boolean isOwnedBy(int index, TeamColor team) {
+        int slot = slotOf(index);
+        return slot >= 0 && ownedBy[team.getId()].get(slot);
     }
     
     /**
      * Get sorted list of beacons by index
      */
     public List<Beacon> getSortedBeacons() {
-        return beacons.values().stream()
-                .sorted(Comparator.comparingInt(Beacon::getIndex))
-                .collect(Collectors.toList());
+        return beaconListView;
     }
     
     /**
      * Get the frontmost beacon for a team (closest to enemy territory)
-     * - For Red: highest index Red beacon (furthest right, closest to Blue)
-     * - For Blue: lowest index Blue beacon (furthest left, closest to Red)
+     * - For Red: lowest index Red beacon (Red's home is the positive end)
+     * - For Blue: highest index Blue beacon (Blue's home is the negative end)
      * Returns null if team has no beacons
      */
     public Beacon getFrontmostBeacon(TeamColor team) {
@@ -169,12 +392,9 @@ public class BeaconManager {
             return null;
         }
         
-        return beacons.values().stream()
-                .filter(b -> b.getOwner() == team)
-                .max(team == TeamColor.RED 
-                        ? Comparator.comparingInt(Beacon::getIndex).reversed()  // Red: LOWEST index
-                        : Comparator.comparingInt(Beacon::getIndex))  // Blue: HIGHEST index
-                .orElse(null);
+        BitSet bits = ownedBy[team.getId()];
+        int slot = (team == TeamColor.RED) ? bits.nextSetBit(0) : bits.previousSetBit(beacons.length - 1);
+        return slot < 0 ? null : beacons[slot];
     }
     
     /**
@@ -182,68 +402,66 @@ public class BeaconManager {
      * Returns null if no neutral beacons exist
      */
     public Beacon getAnyNeutralBeacon() {
-        return beacons.values().stream()
-                .filter(b -> b.getOwner() == TeamColor.NEUTRAL)
-                .min(Comparator.comparingInt(b -> Math.abs(b.getIndex())))  // Prefer beacons near index 0
-                .orElse(null);
+        BitSet neutral = ownedBy[TeamColor.NEUTRAL.getId()];
+        int above = neutral.nextSetBit(offset);
+        int below = neutral.previousSetBit(offset);
+        
+        // Prefer beacons near index 0
+        int slot;
+        if (above < 0) {
+            slot = below;
+        } else if (below < 0) {
+            slot = above;
+        } else {
+            slot = (above - offset <= offset - below) ? above : below;
+        }
+        return slot < 0 ? null : beacons[slot];
     }
     
     /**
-     * Get the interpolated beacon index for a given X coordinate.
-     * Uses actual beacon positions to linearly interpolate between beacon indices.
-     * 
-     * @param playerX The player's X coordinate
-     * @return The interpolated beacon index (e.g., 1.5 = halfway between beacon 1 and 2)
-     *         Returns 0 if no beacons exist.
+     * Build the capture graph from the placed beacons. Call once placement is done.
+     * @param extraLinks Extra beacon index pairs to link on top of the line between consecutive beacons
      */
-    public double getInterpolatedBeaconIndex(double playerX) {
-        List<Beacon> sorted = getSortedBeacons();
-        if (sorted.isEmpty()) {
-            return 0;
+    public void buildTopology(List<int[]> extraLinks) {
+        BitSet present = new BitSet(beacons.length);
+        for (Beacon beacon : beaconList) {
+            present.set(slotOf(beacon.getIndex()));
         }
         
-        // If player is before the first beacon, extrapolate from first two
-        Beacon first = sorted.get(0);
-        if (playerX <= first.getLocation().getX()) {
-            if (sorted.size() < 2) {
-                return first.getIndex();
+        List<int[]> slotLinks = new ArrayList<>();
+        for (int[] link : extraLinks) {
+            int a = slotOf(link[0]);
+            int b = slotOf(link[1]);
+            if (a >= 0 && b >= 0) {
+                slotLinks.add(new int[] { a, b });
             }
-            Beacon second = sorted.get(1);
-            double x1 = first.getLocation().getX();
-            double x2 = second.getLocation().getX();
-            double t = (playerX - x1) / (x2 - x1);
-            return first.getIndex() + t * (second.getIndex() - first.getIndex());
         }
-        
-        // If player is after the last beacon, extrapolate from last two
-        Beacon last = sorted.get(sorted.size() - 1);
-        if (playerX >= last.getLocation().getX()) {
-            if (sorted.size() < 2) {
-                return last.getIndex();
-            }
-            Beacon secondLast = sorted.get(sorted.size() - 2);
-            double x1 = secondLast.getLocation().getX();
-            double x2 = last.getLocation().getX();
-            double t = (playerX - x1) / (x2 - x1);
-            return secondLast.getIndex() + t * (last.getIndex() - secondLast.getIndex());
-        }
-        
-        // Find which two beacons the player is between
-        for (int i = 0; i < sorted.size() - 1; i++) {
-            Beacon left = sorted.get(i);
-            Beacon right = sorted.get(i + 1);
-            double leftX = left.getLocation().getX();
-            double rightX = right.getLocation().getX();
-            
-            if (playerX >= leftX && playerX <= rightX) {
-                // Linear interpolation between the two beacon indices
-                double t = (playerX - leftX) / (rightX - leftX);
-                return left.getIndex() + t * (right.getIndex() - left.getIndex());
-            }
+        topology = new BeaconTopology(present, beacons.length, slotLinks);
+    }
+    
+    /**
+     * Build the beacon polyline from the placed beacons. Call once placement is done.
+     */
+    public void buildBeaconLine() {
+        beaconLine = new BeaconLine(getSortedBeacons());
+    }
+    
+    public BeaconLine getBeaconLine() {
+        return beaconLine;
+    }
+    
+    /**
+     * Get the interpolated beacon index for a position, projected onto the actual beacon line.
+     * 
+     * @param x The player's X coordinate
+     * @param z The player's Z coordinate
+     * @return The interpolated beacon index (e.g., 1.5 = halfway between beacon 1 and 2)
+     *         Returns 0 if no beacons exist.
+     */
+    public double getInterpolatedBeaconIndex(double x, double z) {
+        if (beaconLine == null) {
+            return 0;
         }
-        
-        // Fallback (shouldn't reach here)
-        return 0;
+        return beaconLine.getBeaconIndexPosition(x, z);
     }
 }
-
@@ -1,14 +1,29 @@
 package com.beaconwar.game;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
 
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
+import org.bukkit.block.Biome;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
 import com.beaconwar.model.Beacon;
+import com.beaconwar.model.TeamColor;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -23,22 +38,44 @@ public class BeaconPlacer {
     private static final int NETHER_SEARCH_MIN_Y = 50;
     private static final int NETHER_SEARCH_MAX_Y = 100;
     
+    // Candidates whose chunks are loaded together before being evaluated
+    private static final int PRELOAD_WINDOW = 8;
+    
+    // Nether portal sits 6 blocks out in +Z
+    private static final int PORTAL_REACH = 6;
+    
+    private final Plugin plugin;
     private final Player player;
+    private final Executor workers;
+    private final Executor mainThread;
     private final BeaconManager beaconManager;
     private final int spacing;
     private final int groundSearchStartY;
     private final int beaconsPerSide;
     private final boolean spawnCastles;
-    private final boolean spawnCastleGates;
+    private final CastleTemplate castleTemplate;
+    private final CastlePalettes castlePalettes;
     private final boolean isNether;
     private final boolean spawnNetherPortals;
+    private final BlockEditQueue edits;
+    
+    // How far (X/Z) the structures built around a beacon reach; their chunks are preloaded too
+    private final int structureRadius;
     
-    public BeaconPlacer(Player player, BeaconManager beaconManager, int spacing, int beaconsPerSide, int groundSearchStartY, boolean spawnCastles, boolean spawnCastleGates, double netherSpacingMultiplier, boolean spawnNetherPortals) {
+    /**
+     * Block changes are queued on edits rather than applied; run the queue to build
+     */
+    public BeaconPlacer(Plugin plugin, Player player, BeaconManager beaconManager, int spacing, int beaconsPerSide, int groundSearchStartY, boolean spawnCastles, CastleTemplate castleTemplate, CastlePalettes castlePalettes, double netherSpacingMultiplier, boolean spawnNetherPortals, BlockEditQueue edits) {
+        this.plugin = plugin;
         this.player = player;
+        this.workers = task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        this.mainThread = Bukkit.getScheduler().getMainThreadExecutor(plugin);
+        this.edits = edits;
+        this.castlePalettes = castlePalettes;
         this.beaconManager = beaconManager;
         this.beaconsPerSide = beaconsPerSide;
         this.spawnCastles = spawnCastles;
-        this.spawnCastleGates = spawnCastleGates;
+        this.castleTemplate = castleTemplate;
         this.spawnNetherPortals = spawnNetherPortals;
         
         // Detect Nether environment
@@ -49,6 +86,15 @@ public class BeaconPlacer {
         
         // In Nether, groundSearchStartY is randomized per-beacon; store the Overworld value
         this.groundSearchStartY = groundSearchStartY;
+        
+        int radius = 1; // Emerald base
+        if (spawnCastles) {
+            radius = Math.max(radius, castleTemplate.getRadius());
+        }
+        if (isNether && spawnNetherPortals) {
+            radius = Math.max(radius, PORTAL_REACH);
+        }
+        this.structureRadius = radius;
     }
     
     /**
@@ -63,9 +109,13 @@ public class BeaconPlacer {
     }
     
     /**
-     * Place all 11 beacons in a line
+     * Place all 11 beacons in a line.
+     * Candidate chunks are loaded asynchronously and snapshotted, ground is found for every
+     * candidate in parallel off the main thread, and only the chosen placements are built
+     * back on the main thread. Both sides of the line are placed at the same time.
+     * @return Completes on the main thread with whether every beacon was placed
      */
-    public boolean placeAllBeacons() {
+    public CompletableFuture<Boolean> placeAllBeacons() {
         String dimensionName = isNether ? "Nether" : "Overworld";
         player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.GRAY)
                 .append(Component.text("Starting beacon placement in " + dimensionName + "...", NamedTextColor.YELLOW)));
@@ -75,56 +125,81 @@ public class BeaconPlacer {
         
         // Place beacon 0 at spawn (use player's Y + 2 instead of random for beacon 0)
         int beacon0SearchY = isNether ? spawnPoint.getBlockY() + 2 : groundSearchStartY;
-        Location beacon0Loc = findGroundForDimension(world, spawnPoint.getBlockX(), beacon0SearchY, spawnPoint.getBlockZ());
-        if (beacon0Loc == null) {
+        List<Candidate> spawnColumn = List.of(new Candidate(spawnPoint.getBlockX(), spawnPoint.getBlockZ(), false, null));
+        
+        return tryCandidates(world, spawnColumn, 0, 0, beacon0SearchY).thenCompose(beacon0Loc -> {
+            if (beacon0Loc == null) {
+                if (!edits.isCancelled()) {
+                    player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                            .append(Component.text("Failed to find ground for beacon 0!", NamedTextColor.YELLOW)));
+                }
+                return CompletableFuture.completedFuture(false);
+            }
+            
+            // Positive side (1 to beaconsPerSide) and negative side (-1 to -beaconsPerSide) together
+            return placeSide(beacon0Loc, 1, true)
+                    .thenCombine(placeSide(beacon0Loc, -1, false), (positive, negative) -> positive && negative);
+        }).thenApply(placed -> {
+            if (placed) {
+                String hazardType = isNether ? "lava" : "water";
+                player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.AQUA)
+                        .append(Component.text("Beacon line deployed with " + hazardType + " avoidance!", NamedTextColor.GREEN)));
+            }
+            return placed;
+        }).exceptionallyAsync(error -> {
+            plugin.getLogger().log(Level.SEVERE, "Beacon placement failed", error);
             player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
-                    .append(Component.text("Failed to find ground for beacon 0!", NamedTextColor.YELLOW)));
+                    .append(Component.text("Beacon placement failed! See the server log for details.", NamedTextColor.YELLOW)));
             return false;
+        }, mainThread);
+    }
+    
+    /**
+     * Place beacons from index outwards to the end of one side, each relative to the previous
+     * @param prevLoc Ground location of the previous beacon
+     */
+    private CompletableFuture<Boolean> placeSide(Location prevLoc, int index, boolean positive) {
+        if (edits.isCancelled()) {
+            return CompletableFuture.completedFuture(false);
         }
-        
-        // Beacon 0 location is ground block, place beacon one above
-        Location beacon0BeaconLoc = beacon0Loc.clone().add(0, 1, 0);
-        buildBeacon(beacon0BeaconLoc, 0);
-        Beacon beacon0 = new Beacon(0, beacon0BeaconLoc);
-        beacon0.initializeOwnerFromGlass(); // Initialize ownership from the glass we just placed
-        beaconManager.addBeacon(beacon0);
-        
-        // Place positive side (1 to beaconsPerSide)
-        Location prevLoc = beacon0Loc; // Keep track of ground location for next beacon
-        for (int i = 1; i <= beaconsPerSide; i++) {
-            Location loc = placeNextBeacon(prevLoc, i, true);
-            if (loc == null) {
-                player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
-                        .append(Component.text("Failed to place beacon " + i, NamedTextColor.YELLOW)));
-                return false;
-            }
-            prevLoc = loc;
+        if (Math.abs(index) > beaconsPerSide) {
+            return CompletableFuture.completedFuture(true);
         }
         
-        // Place negative side (-1 to -beaconsPerSide)
-        prevLoc = beacon0Loc;
-        for (int i = -1; i >= -beaconsPerSide; i--) {
-            Location loc = placeNextBeacon(prevLoc, i, false);
+        return placeNextBeacon(prevLoc, index, positive).thenCompose(loc -> {
             if (loc == null) {
-                player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
-                        .append(Component.text("Failed to place beacon " + i, NamedTextColor.YELLOW)));
-                return false;
+                if (!edits.isCancelled()) {
+                    player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                            .append(Component.text("Failed to place beacon " + index, NamedTextColor.YELLOW)));
+                }
+                return CompletableFuture.completedFuture(false);
             }
-            prevLoc = loc;
-        }
+            return placeSide(loc, positive ? index + 1 : index - 1, positive);
+        });
+    }
+    
+    /**
+     * A column to try for a beacon, in preference order
+     */
+    private record Candidate(int x, int z, boolean requireSafe, String message) {}
+    
+    /**
+     * Place next beacon relative to previous, avoiding water/lava
+     * @return Completes with the ground location used, or null if every candidate failed
+     */
+    private CompletableFuture<Location> placeNextBeacon(Location prevLoc, int index, boolean positive) {
+        List<Candidate> candidates = buildCandidates(prevLoc, index, positive);
         
-        String hazardType = isNether ? "lava" : "water";
-        player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.AQUA)
-                .append(Component.text("Beacon line deployed with " + hazardType + " avoidance!", NamedTextColor.GREEN)));
+        // Get a random search Y for this beacon (only varies in Nether)
+        int searchY = getSearchStartY();
         
-        return true;
+        return tryCandidates(prevLoc.getWorld(), candidates, 0, index, searchY);
     }
     
     /**
-     * Place next beacon relative to previous, avoiding water/lava
+     * All columns to try for a beacon, computed up front so their chunks can be preloaded
      */
-    private Location placeNextBeacon(Location prevLoc, int index, boolean positive) {
-        World world = prevLoc.getWorld();
+    private List<Candidate> buildCandidates(Location prevLoc, int index, boolean positive) {
         int prevX = prevLoc.getBlockX();
         int prevZ = prevLoc.getBlockZ();
         int direction = positive ? 1 : -1;
@@ -133,7 +208,7 @@ public class BeaconPlacer {
         // List of (xMultiplier, zMultiplier, requireSafe, message)
         record Attempt(double xMultiplier, double zMultiplier, boolean requireSafe, String message) {}
         
-        java.util.List<Attempt> attemptsList = new java.util.ArrayList<>();
+        List<Attempt> attemptsList = new ArrayList<>();
         
         // Initial attempts
         attemptsList.add(new Attempt(1, 0, true, null));
@@ -164,123 +239,263 @@ public class BeaconPlacer {
         // Last resort - place regardless of hazard
         attemptsList.add(new Attempt(3, 0, false, "All positions have " + hazardName.toLowerCase() + "! Placing beacon " + index + " at 3x spacing"));
         
-        // Get a random search Y for this beacon (only varies in Nether)
-        int searchY = getSearchStartY();
-        
+        List<Candidate> candidates = new ArrayList<>(attemptsList.size());
         for (Attempt attempt : attemptsList) {
             int tryX = (int)(prevX + (attempt.xMultiplier * spacing * direction));
             int tryZ = (int)(prevZ + (attempt.zMultiplier * spacing));
-            Location groundLoc = findGroundForDimension(world, tryX, searchY, tryZ);
+            candidates.add(new Candidate(tryX, tryZ, attempt.requireSafe, attempt.message));
+        }
+        return candidates;
+    }
+    
+    /**
+     * Evaluate candidates in order, loading one window of chunks at a time.
+     * Most beacons succeed in the first window, so far-out candidates are rarely generated.
+     * @return Completes on the main thread with the ground location used, or null
+     */
+    private CompletableFuture<Location> tryCandidates(World world, List<Candidate> candidates, int from, int index, int searchY) {
+        if (from >= candidates.size() || edits.isCancelled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int to = Math.min(candidates.size(), from + PRELOAD_WINDOW);
+        
+        return preload(world, candidates, from, to)
+                .thenCompose(loaded -> evaluate(world, candidates, from, to, searchY))
+                .thenComposeAsync(grounds -> {
+                    if (edits.isCancelled()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    // First acceptable candidate in preference order, exactly like a serial search
+                    for (int i = from; i < to; i++) {
+                        Candidate candidate = candidates.get(i);
+                        Ground ground = grounds[i - from];
+                        
+                        if (ground != null && (!candidate.requireSafe || !ground.hazard)) {
+                            if (candidate.message != null) {
+                                NamedTextColor msgColor = candidate.requireSafe ? NamedTextColor.GRAY : NamedTextColor.RED;
+                                player.sendMessage(Component.text("[Beacon War] ", msgColor)
+                                        .append(Component.text(candidate.message, NamedTextColor.YELLOW)));
+                            }
+                            return CompletableFuture.completedFuture(placeBeaconAt(new Location(world, candidate.x, ground.y, candidate.z), index, ground));
+                        }
+                    }
+                    return tryCandidates(world, candidates, to, index, searchY);
+                }, mainThread);
+    }
+    
+    /**
+     * Ground found in a candidate column
+     * @param hazard Whether the ground block is water (Overworld) or lava (Nether)
+     * @param biome Biome where the beacon would stand (picks the castle palette)
+     * @param beamObstructions Heights of the non-air blocks in the beam path, lowest first
+     */
+    private record Ground(int y, boolean hazard, Biome biome, int[] beamObstructions) {}
+    
+    /**
+     * Snapshot the candidates' chunks (main thread), then find ground in every column in
+     * parallel on the async scheduler's worker pool.
+     * @return One entry per candidate in [from, to); null where no ground was found
+     */
+    private CompletableFuture<Ground[]> evaluate(World world, List<Candidate> candidates, int from, int to, int searchY) {
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+        int startY = Math.min(searchY, maxHeight - 1);
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        Ground[] grounds = new Ground[to - from];
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[to - from];
+        
+        for (int i = from; i < to; i++) {
+            Candidate candidate = candidates.get(i);
+            int chunkX = candidate.x >> 4;
+            int chunkZ = candidate.z >> 4;
+            ChunkSnapshot snapshot = snapshots.computeIfAbsent(chunkKey(chunkX, chunkZ),
+                    key -> world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(true, spawnCastles, false));
             
-            if (groundLoc != null && (!attempt.requireSafe || !isHazard(groundLoc))) {
-                if (attempt.message != null) {
-                    NamedTextColor msgColor = attempt.requireSafe ? NamedTextColor.GRAY : NamedTextColor.RED;
-                    player.sendMessage(Component.text("[Beacon War] ", msgColor)
-                            .append(Component.text(attempt.message, NamedTextColor.YELLOW)));
+            int slot = i - from;
+            jobs[slot] = CompletableFuture.runAsync(
+                    () -> grounds[slot] = findGroundIn(snapshot, minHeight, maxHeight, candidate.x, startY, candidate.z), workers);
+        }
+        return CompletableFuture.allOf(jobs).thenApply(done -> grounds);
+    }
+    
+    /**
+     * Find ground for the current dimension in a snapshot column (safe off the main thread)
+     */
+    private Ground findGroundIn(ChunkSnapshot snapshot, int minHeight, int maxHeight, int x, int startY, int z) {
+        int y = isNether
+                ? findGroundNether(snapshot, minHeight, x, startY, z)
+                : findGround(snapshot, minHeight, x, startY, z);
+        if (y == Integer.MIN_VALUE) {
+            return null;
+        }
+        Material type = snapshot.getBlockType(x & 15, y, z & 15);
+        Biome biome = spawnCastles ? snapshot.getBiome(x & 15, y + 1, z & 15) : null;
+        
+        // Beacon sits at y + 1 and its glass at y + 2; the beam needs everything above clear
+        int[] obstructions = findBeamObstructions(snapshot, minHeight, maxHeight, x, y + 3, z);
+        return new Ground(y, MaterialTables.isHazard(type, isNether), biome, obstructions);
+    }
+    
+    /**
+     * Heights of every non-air block from fromY up to the top of the world, lowest first.
+     * Stops at the heightmap surface and skips empty sections, so open sky costs nothing.
+     */
+    private static int[] findBeamObstructions(ChunkSnapshot snapshot, int minHeight, int maxHeight, int x, int fromY, int z) {
+        int localX = x & 15;
+        int localZ = z & 15;
+        int top = Math.min(maxHeight - 1, snapshot.getHighestBlockYAt(localX, localZ));
+        
+        int[] found = new int[8];
+        int count = 0;
+        for (int y = fromY; y <= top; y++) {
+            int section = (y - minHeight) >> 4;
+            if (snapshot.isSectionEmpty(section)) {
+                y = minHeight + (section << 4) + 15; // Jump to the top of the empty section
+                continue;
+            }
+            if (!snapshot.getBlockType(localX, y, localZ).isAir()) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
                 }
-                return placeBeaconAt(groundLoc, index);
+                found[count++] = y;
             }
         }
-        
-        return null;
+        return Arrays.copyOf(found, count);
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Load (or generate) every chunk the candidates in [from, to) and their structures touch.
+     * Paper completes async chunk loads on the main thread, so callbacks may touch the world.
+     */
+    private CompletableFuture<Void> preload(World world, List<Candidate> candidates, int from, int to) {
+        Set<Long> requested = new HashSet<>();
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Candidate candidate = candidates.get(i);
+            for (int chunkX = (candidate.x - structureRadius) >> 4; chunkX <= (candidate.x + structureRadius) >> 4; chunkX++) {
+                for (int chunkZ = (candidate.z - structureRadius) >> 4; chunkZ <= (candidate.z + structureRadius) >> 4; chunkZ++) {
+                    if (requested.add(chunkKey(chunkX, chunkZ)) && !world.isChunkLoaded(chunkX, chunkZ)) {
+                        loads.add(world.getChunkAtAsync(chunkX, chunkZ));
+                    }
+                }
+            }
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]));
     }
     
     /**
      * Place beacon at the given ground location and register it
      * Returns the ground location for the next beacon to use as reference
      */
-    private Location placeBeaconAt(Location groundLoc, int index) {
+    private Location placeBeaconAt(Location groundLoc, int index, Ground ground) {
         // Ground location is the solid block itself, beacon goes one block above
         Location beaconLoc = groundLoc.clone().add(0, 1, 0);
-        buildBeacon(beaconLoc, index);
+        buildBeacon(beaconLoc, index, ground);
         Beacon beacon = new Beacon(index, beaconLoc);
-        beacon.initializeOwnerFromGlass();
+        beacon.initializeOwner(initialOwner(index));
         beaconManager.addBeacon(beacon);
         return groundLoc; // Return ground location for next beacon
     }
     
     /**
-     * Find ground using the appropriate method for current dimension
+     * Starting owner for a beacon index, matching the glass buildBeacon queues
      */
-    private Location findGroundForDimension(World world, int x, int startY, int z) {
-        if (isNether) {
-            return findGroundNether(world, x, startY, z);
-        } else {
-            return findGround(world, x, startY, z);
+    private static TeamColor initialOwner(int index) {
+        if (index > 0) {
+            return TeamColor.RED;
+        } else if (index < 0) {
+            return TeamColor.BLUE;
         }
+        return TeamColor.NEUTRAL;
     }
     
     /**
-     * Find solid ground below a position (Overworld method)
-     * Returns the location of the ground block itself (not the block above)
+     * Find solid ground below a position (Overworld method) in a chunk snapshot,
+     * so it can run off the main thread. x and z are world coordinates inside the snapshot.
+     * Valid ground = any block except air, leaves, and wood.
+     * Starts at the heightmap surface, so only the canopy (if any) is scanned block by block.
+     * @return The Y of the ground block, or Integer.MIN_VALUE if none was found
      */
-    public static Location findGround(World world, int x, int startY, int z) {
-        for (int y = startY; y > world.getMinHeight(); y--) {
-            Block block = world.getBlockAt(x, y, z);
-            Material type = block.getType();
+    public static int findGround(ChunkSnapshot snapshot, int minHeight, int x, int startY, int z) {
+        int localX = x & 15;
+        int localZ = z & 15;
+        for (int y = surfaceStartY(snapshot, localX, startY, localZ); y > minHeight; y--) {
+            Material type = snapshot.getBlockType(localX, y, localZ);
             
-            // Valid ground = any block except air, leaves, and wood
-            if (!type.isAir() && 
-                !type.name().contains("LEAVES") && 
-                !type.name().contains("LOG") &&
-                !type.name().contains("WOOD")) {
-                // Return the ground block itself
-                return new Location(world, x, y, z);
+            if (MaterialTables.isBeaconGround(type)) {
+                return y;
             }
         }
-        return null;
+        return Integer.MIN_VALUE;
+    }
+    
+    /**
+     * Where a downward ground scan can start. The snapshot's heightmap is MOTION_BLOCKING, so
+     * grass, flowers, sugar cane or snow layers may stand on top of the block it reports; the
+     * start climbs past those so they still count as ground, as they did for a scan from startY.
+     * Only blocks floating above an air gap over the surface are missed.
+     */
+    private static int surfaceStartY(ChunkSnapshot snapshot, int localX, int startY, int localZ) {
+        int y = snapshot.getHighestBlockYAt(localX, localZ) + 1;
+        while (y < startY && !snapshot.getBlockType(localX, y, localZ).isAir()) {
+            y++;
+        }
+        return Math.min(startY, y);
     }
     
     /**
      * Find ground in the Nether dimension
      * Searches for air over a solid block. If lava is found before finding
-     * valid air-over-solid, returns null (treated as hazard location).
-     * Returns the location of the ground block itself (not the block above)
+     * valid air-over-solid, there is no ground (treated as hazard location).
+     * The heightmap only sees the roof, so instead of jumping to the surface this
+     * skips whole empty sections of open cavern.
+     * @return The Y of the ground block, or Integer.MIN_VALUE if none was found
      */
-    private static Location findGroundNether(World world, int x, int startY, int z) {
+    public static int findGroundNether(ChunkSnapshot snapshot, int minHeight, int x, int startY, int z) {
+        int localX = x & 15;
+        int localZ = z & 15;
         boolean foundAir = false;
         
-        for (int y = startY; y > world.getMinHeight(); y--) {
-            Block block = world.getBlockAt(x, y, z);
-            Material type = block.getType();
+        for (int y = surfaceStartY(snapshot, localX, startY, localZ); y > minHeight; y--) {
+            int sectionBottom = minHeight + (((y - minHeight) >> 4) << 4);
+            if (snapshot.isSectionEmpty((y - minHeight) >> 4)) {
+                // Nothing but air down to the bottom of this section
+                foundAir = true;
+                y = sectionBottom;
+                continue;
+            }
+            
+            Material type = snapshot.getBlockType(localX, y, localZ);
             
             if (type.isAir() || type == Material.CAVE_AIR || type == Material.VOID_AIR) {
                 foundAir = true;
-            } else if (type == Material.LAVA) {
+            } else if (MaterialTables.isHazard(type, true)) {
                 // Lava found before finding valid ground - treat as hazard
                 if (!foundAir) {
-                    return null;
+                    return Integer.MIN_VALUE;
                 }
                 // Lava found after air - this is a hazard location
-                return new Location(world, x, y, z);
+                return y;
             } else if (foundAir) {
                 // Found solid block after air - this is valid ground
-                return new Location(world, x, y, z);
+                return y;
             }
             // Otherwise keep searching (we're still in solid ceiling)
         }
-        return null;
-    }
-    
-    /**
-     * Check if the ground block is a hazard (water in Overworld, lava in Nether)
-     */
-    private boolean isHazard(Location groundLoc) {
-        Block block = groundLoc.getBlock();
-        Material type = block.getType();
-        
-        if (isNether) {
-            return type == Material.LAVA;
-        } else {
-            return type == Material.WATER;
-        }
+        return Integer.MIN_VALUE;
     }
     
     /**
      * Build beacon structure at location
      * loc is the location WHERE THE BEACON BLOCK GOES (one block above ground)
+     * ground was read from the chunk snapshot: its biome picks the castle palette and
+     * only its beam obstructions are cleared
      */
-    private void buildBeacon(Location loc, int index) {
+    private void buildBeacon(Location loc, int index, Ground ground) {
         World world = loc.getWorld();
         int x = loc.getBlockX();
         int y = loc.getBlockY();
@@ -289,27 +504,21 @@ public class BeaconPlacer {
         // Create 3x3 emerald block base (one block below beacon)
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
-                world.getBlockAt(x + dx, y - 1, z + dz).setType(Material.EMERALD_BLOCK);
+                edits.set(world, x + dx, y - 1, z + dz, Material.EMERALD_BLOCK);
             }
         }
         
         // Place beacon at this location
-        world.getBlockAt(x, y, z).setType(Material.BEACON);
+        edits.set(world, x, y, z, Material.BEACON);
         
-        // Clear column above for beam (use world max height)
-        int maxY = world.getMaxHeight();
-        for (int dy = 1; dy < maxY - y; dy++) {
-            world.getBlockAt(x, y + dy, z).setType(Material.AIR);
+        // Clear the beam path; only blocks that are actually there, bottom up so each
+        // section's writes are queued together
+        for (int obstructionY : ground.beamObstructions) {
+            edits.set(world, x, obstructionY, z, Material.AIR);
         }
         
         // Place colored glass based on index
-        Material glassType = Material.AIR;
-        if (index > 0) {
-            glassType = Material.RED_STAINED_GLASS;
-        } else if (index < 0) {
-            glassType = Material.BLUE_STAINED_GLASS;
-        }
-        world.getBlockAt(x, y + 1, z).setType(glassType);
+        edits.set(world, x, y + 1, z, initialOwner(index).getGlassMaterial());
         
         player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.GRAY)
                 .append(Component.text("Placed beacon " + index + " at (" + x + ", " + z + ")", 
@@ -317,7 +526,7 @@ public class BeaconPlacer {
         
         // Build castle around beacon if enabled
         if (spawnCastles) {
-            CastleBuilder castle = new CastleBuilder(loc, spawnCastleGates);
+            CastleBuilder castle = new CastleBuilder(loc, castleTemplate, castlePalettes.get(ground.biome), edits);
             castle.build();
         }
         
@@ -341,32 +550,32 @@ public class BeaconPlacer {
         // Clear space for portal (5 tall, 4 wide in X direction)
         for (int dx = -1; dx <= 2; dx++) {
             for (int dy = 0; dy <= 4; dy++) {
-                world.getBlockAt(baseX + dx, baseY + dy, baseZ).setType(Material.AIR);
+                edits.set(world, baseX + dx, baseY + dy, baseZ, Material.AIR);
             }
         }
         
         // Build obsidian frame (4 wide x 5 tall)
         // Bottom row
         for (int dx = 0; dx <= 1; dx++) {
-            world.getBlockAt(baseX + dx, baseY, baseZ).setType(Material.OBSIDIAN);
+            edits.set(world, baseX + dx, baseY, baseZ, Material.OBSIDIAN);
         }
         // Top row
         for (int dx = 0; dx <= 1; dx++) {
-            world.getBlockAt(baseX + dx, baseY + 4, baseZ).setType(Material.OBSIDIAN);
+            edits.set(world, baseX + dx, baseY + 4, baseZ, Material.OBSIDIAN);
         }
         // Left column
         for (int dy = 0; dy <= 4; dy++) {
-            world.getBlockAt(baseX - 1, baseY + dy, baseZ).setType(Material.OBSIDIAN);
+            edits.set(world, baseX - 1, baseY + dy, baseZ, Material.OBSIDIAN);
         }
         // Right column
         for (int dy = 0; dy <= 4; dy++) {
-            world.getBlockAt(baseX + 2, baseY + dy, baseZ).setType(Material.OBSIDIAN);
+            edits.set(world, baseX + 2, baseY + dy, baseZ, Material.OBSIDIAN);
         }
         
         // Fill interior with portal blocks (2 wide x 3 tall)
         for (int dx = 0; dx <= 1; dx++) {
             for (int dy = 1; dy <= 3; dy++) {
-                world.getBlockAt(baseX + dx, baseY + dy, baseZ).setType(Material.NETHER_PORTAL);
+                edits.set(world, baseX + dx, baseY + dy, baseZ, Material.NETHER_PORTAL);
             }
         }
     }
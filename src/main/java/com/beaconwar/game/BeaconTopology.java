@@ -0,0 +1,90 @@
+package com.beaconwar.game;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Capture graph between beacons, built once at setup.
+ * Every link joins a lower-index beacon (its blue side) to a higher-index one (its red side).
+ * Consecutive placed beacons are always linked; extra links turn the line into forks, rings or grids.
+ * 
+ * Neighbours are stored as flat int arrays (CSR layout: per-slot start offsets into one shared array),
+ * so checking a beacon's neighbours is O(degree) with no hashing or allocation.
+ */
+public class BeaconTopology {
+    
+    // Neighbours of slot s are blueSide[blueStart[s] .. blueStart[s + 1])
+    private final int[] blueStart;
+    private final int[] blueSide;
+    private final int[] redStart;
+    private final int[] redSide;
+    
+    /**
+     * @param present Which slots hold a beacon
+     * @param extraLinks Extra slot pairs to link (order within a pair does not matter)
+     */
+    public BeaconTopology(BitSet present, int slotCount, List<int[]> extraLinks) {
+        // Collect edges as (low, high) slot pairs: consecutive placed beacons plus extras
+        int maxEdges = slotCount + extraLinks.size();
+        int[] lows = new int[maxEdges];
+        int[] highs = new int[maxEdges];
+        int edges = 0;
+        
+        for (int slot = present.nextSetBit(0); slot >= 0 && slot + 1 < slotCount; slot = present.nextSetBit(slot + 1)) {
+            if (present.get(slot + 1)) {
+                lows[edges] = slot;
+                highs[edges] = slot + 1;
+                edges++;
+            }
+        }
+        for (int[] link : extraLinks) {
+            int low = Math.min(link[0], link[1]);
+            int high = Math.max(link[0], link[1]);
+            if (low == high || !present.get(low) || !present.get(high) || high == low + 1) {
+                continue; // Self links, missing beacons and duplicates of line links are ignored
+            }
+            lows[edges] = low;
+            highs[edges] = high;
+            edges++;
+        }
+        
+        // Count degrees, prefix-sum into start offsets, then fill
+        blueStart = new int[slotCount + 1];
+        redStart = new int[slotCount + 1];
+        for (int i = 0; i < edges; i++) {
+            blueStart[highs[i] + 1]++;
+            redStart[lows[i] + 1]++;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            blueStart[slot + 1] += blueStart[slot];
+            redStart[slot + 1] += redStart[slot];
+        }
+        
+        blueSide = new int[edges];
+        redSide = new int[edges];
+        int[] blueFill = new int[slotCount];
+        int[] redFill = new int[slotCount];
+        for (int i = 0; i < edges; i++) {
+            blueSide[blueStart[highs[i]] + blueFill[highs[i]]++] = lows[i];
+            redSide[redStart[lows[i]] + redFill[lows[i]]++] = highs[i];
+        }
+    }
+    
+    /**
+     * Check that every blue-side neighbour of a slot is blue and every red-side neighbour is red.
+     * This is the neutral-capture rule: a beacon can only be neutralized from between the fronts.
+     */
+    public boolean isFlankedBy(int slot, BitSet blueOwned, BitSet redOwned) {
+        for (int i = blueStart[slot]; i < blueStart[slot + 1]; i++) {
+            if (!blueOwned.get(blueSide[i])) {
+                return false;
+            }
+        }
+        for (int i = redStart[slot]; i < redStart[slot + 1]; i++) {
+            if (!redOwned.get(redSide[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
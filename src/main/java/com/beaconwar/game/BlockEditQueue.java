@@ -0,0 +1,260 @@
+package com.beaconwar.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+/**
+ * Buffers block edits and applies them in order over several ticks, under a per-tick block
+ * and millisecond budget, so large builds (beacon setup, castles, beam columns) never freeze
+ * the server. Progress is shown to the admin and a callback runs when the last edit lands.
+ */
+public class BlockEditQueue {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    // Check the clock only every few edits; System.nanoTime() isn't free either
+    private static final int TIME_CHECK_INTERVAL = 64;
+    
+    // Chunks requested at once by preloadChunks
+    private static final int PRELOAD_WINDOW = 8;
+    
+    private final Plugin plugin;
+    private final ChunkTickets chunkTickets;
+    
+    // Edits in insertion order, as parallel primitive arrays
+    private final List<World> worlds = new ArrayList<>();
+    private int[] worldIds = new int[INITIAL_CAPACITY];
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int[] zs = new int[INITIAL_CAPACITY];
+    private Material[] types = new Material[INITIAL_CAPACITY];
+    private BlockData[] datas = new BlockData[INITIAL_CAPACITY]; // Set instead of types when non-null
+    private final BitSet skipPhysics = new BitSet();
+    private int size = 0;
+    private int applied = 0;
+    
+    private TerrainJournal journal;
+    private BukkitTask task;
+    private boolean cancelled = false;
+    
+    /**
+     * @param chunkTickets The game's ticket holder; preloaded chunks are held through a share of it
+     */
+    public BlockEditQueue(Plugin plugin, ChunkTickets chunkTickets) {
+        this.plugin = plugin;
+        this.chunkTickets = chunkTickets.share();
+    }
+    
+    /**
+     * Queue a block change (applied with physics, like Block#setType(Material))
+     */
+    public void set(World world, int x, int y, int z, Material type) {
+        set(world, x, y, z, type, true);
+    }
+    
+    public void set(World world, int x, int y, int z, Material type, boolean applyPhysics) {
+        add(world, x, y, z, applyPhysics);
+        types[size - 1] = type;
+    }
+    
+    /**
+     * Queue a full block data change (e.g. restoring saved terrain)
+     */
+    public void set(World world, int x, int y, int z, BlockData data, boolean applyPhysics) {
+        add(world, x, y, z, applyPhysics);
+        datas[size - 1] = data;
+    }
+    
+    private void add(World world, int x, int y, int z, boolean applyPhysics) {
+        if (size == xs.length) {
+            int capacity = size * 2;
+            worldIds = Arrays.copyOf(worldIds, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            types = Arrays.copyOf(types, capacity);
+            datas = Arrays.copyOf(datas, capacity);
+        }
+        worldIds[size] = worldId(world);
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        skipPhysics.set(size, !applyPhysics);
+        size++;
+    }
+    
+    /**
+     * Record each block's original data in the journal just before it is changed
+     */
+    public void journalTo(TerrainJournal journal) {
+        this.journal = journal;
+    }
+    
+    private int worldId(World world) {
+        for (int i = 0; i < worlds.size(); i++) {
+            if (worlds.get(i) == world) {
+                return i;
+            }
+        }
+        worlds.add(world);
+        return worlds.size() - 1;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isRunning() {
+        return task != null;
+    }
+    
+    /**
+     * Whether {@link #cancel()} was called; producers still queueing edits should stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Load every chunk the queued edits touch, a window at a time without blocking the main
+     * thread, and keep them loaded until the queue finishes or is cancelled. Run the queue
+     * once this completes when the edits may be far from any player (e.g. after a restart).
+     */
+    public CompletableFuture<Void> preloadChunks() {
+        List<Set<Long>> chunksByWorld = new ArrayList<>();
+        for (int i = 0; i < worlds.size(); i++) {
+            chunksByWorld.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < size; i++) {
+            chunksByWorld.get(worldIds[i]).add(((long) (xs[i] >> 4) << 32) | ((zs[i] >> 4) & 0xFFFFFFFFL));
+        }
+        
+        List<World> chunkWorlds = new ArrayList<>();
+        List<Long> chunkKeys = new ArrayList<>();
+        for (int w = 0; w < chunksByWorld.size(); w++) {
+            for (long key : chunksByWorld.get(w)) {
+                chunkWorlds.add(worlds.get(w));
+                chunkKeys.add(key);
+            }
+        }
+        return preloadWindow(chunkWorlds, chunkKeys, 0);
+    }
+    
+    private CompletableFuture<Void> preloadWindow(List<World> chunkWorlds, List<Long> chunkKeys, int from) {
+        if (cancelled || from >= chunkKeys.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int to = Math.min(chunkKeys.size(), from + PRELOAD_WINDOW);
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            World world = chunkWorlds.get(i);
+            int chunkX = (int) (chunkKeys.get(i) >> 32);
+            int chunkZ = (int) (long) chunkKeys.get(i);
+            // Completes on the main thread; hold a ticket so the chunk stays loaded until its edits land
+            loads.add(world.getChunkAtAsync(chunkX, chunkZ).thenApply(chunk -> {
+                if (!cancelled) {
+                    chunkTickets.hold(world, chunkX << 4, chunkZ << 4);
+                }
+                return chunk;
+            }));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                .thenCompose(loaded -> preloadWindow(chunkWorlds, chunkKeys, to));
+    }
+    
+    /**
+     * Start applying queued edits, one batch per tick
+     * @param admin Player shown progress (may go offline)
+     * @param label What is being built, for the progress bar
+     * @param onComplete Run on the main thread once every edit has been applied
+     */
+    public void run(Player admin, String label, int blocksPerTick, long millisPerTick, Runnable onComplete) {
+        if (cancelled) {
+            return;
+        }
+        int blockBudget = Math.max(1, blocksPerTick);
+        long nanoBudget = Math.max(1, millisPerTick) * 1_000_000L;
+        
+        task = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            applyBatch(blockBudget, nanoBudget);
+            
+            if (applied < size) {
+                if (admin.isOnline()) {
+                    admin.sendActionBar(Component.text(label + ": ", NamedTextColor.GRAY)
+                            .append(Component.text((applied * 100L / size) + "% ", NamedTextColor.GREEN))
+                            .append(Component.text("(" + applied + "/" + size + " blocks)", NamedTextColor.DARK_GRAY)));
+                }
+                return;
+            }
+            
+            task.cancel();
+            task = null;
+            if (admin.isOnline()) {
+                admin.sendActionBar(Component.text(label + ": done", NamedTextColor.GREEN));
+            }
+            clear();
+            onComplete.run();
+        }, 1L, 1L);
+    }
+    
+    private void applyBatch(int blockBudget, long nanoBudget) {
+        long start = System.nanoTime();
+        int end = Math.min(size, applied + blockBudget);
+        while (applied < end) {
+            int i = applied++;
+            Block block = worlds.get(worldIds[i]).getBlockAt(xs[i], ys[i], zs[i]);
+            if (journal != null) {
+                journal.record(block);
+            }
+            if (datas[i] != null) {
+                block.setBlockData(datas[i], !skipPhysics.get(i));
+            } else {
+                block.setType(types[i], !skipPhysics.get(i));
+            }
+            
+            if (applied % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - start >= nanoBudget) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Stop applying edits (already applied blocks stay)
+     */
+    public void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        chunkTickets.releaseAll();
+    }
+    
+    private void clear() {
+        chunkTickets.releaseAll();
+        Arrays.fill(types, 0, size, null);
+        Arrays.fill(datas, 0, size, null);
+        worlds.clear();
+        skipPhysics.clear();
+        size = 0;
+        applied = 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.beaconwar.game;
+
+/**
+ * Packs block coordinates into a single long (26 bits x, 26 bits z, 12 bits y)
+ * for allocation-free position lookups.
+ */
+public final class BlockKeys {
+    
+    private BlockKeys() {
+    }
+    
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+}
@@ -0,0 +1,187 @@
+package com.beaconwar.game;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Castle materials per biome, resolved once at startup into an EnumMap so building a
+ * castle is a single lookup. Entries under castle-palettes in the config override the
+ * built-in choices.
+ */
+public class CastlePalettes {
+    
+    /**
+     * Material pair for castle construction
+     * @param wall The predominant biome-specific material
+     * @param detail Used for accents (tower corners, gate arches)
+     */
+    public record Palette(Material wall, Material detail) {}
+    
+    private static final Palette DEFAULT = new Palette(Material.STONE_BRICKS, Material.COBBLESTONE);
+    
+    private final Map<Biome, Palette> palettes = new EnumMap<>(Biome.class);
+    
+    private CastlePalettes() {
+        for (Biome biome : Biome.values()) {
+            palettes.put(biome, defaultFor(biome));
+        }
+    }
+    
+    /**
+     * Build the table from the built-in palettes plus the castle-palettes config section
+     */
+    public static CastlePalettes load(Plugin plugin) {
+        CastlePalettes table = new CastlePalettes();
+        ConfigurationSection overrides = plugin.getConfig().getConfigurationSection("castle-palettes");
+        if (overrides == null) {
+            return table;
+        }
+        
+        for (String key : overrides.getKeys(false)) {
+            Biome biome = parseBiome(key);
+            ConfigurationSection entry = overrides.getConfigurationSection(key);
+            Material wall = entry == null ? null : parseBlock(entry.getString("wall", ""));
+            Material detail = entry == null ? null : parseBlock(entry.getString("detail", ""));
+            if (biome == null || wall == null || detail == null) {
+                plugin.getLogger().warning("Ignoring invalid castle-palettes entry '" + key + "' (expected a biome with wall and detail block materials)");
+                continue;
+            }
+            table.palettes.put(biome, new Palette(wall, detail));
+        }
+        return table;
+    }
+    
+    /**
+     * @return The block material with this name, or null if unknown or item-only (e.g. DIAMOND)
+     */
+    private static Material parseBlock(String name) {
+        Material material = Material.matchMaterial(name);
+        return material != null && material.isBlock() ? material : null;
+    }
+    
+    private static Biome parseBiome(String name) {
+        try {
+            return Biome.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    public Palette get(Biome biome) {
+        return biome == null ? DEFAULT : palettes.getOrDefault(biome, DEFAULT);
+    }
+    
+    /**
+     * Built-in palette for a biome (only evaluated while building the table)
+     */
+    private static Palette defaultFor(Biome biome) {
+        String biomeName = biome.name().toLowerCase(Locale.ROOT);
+        
+        // Desert biomes - sandstone dominant
+        if (biomeName.contains("desert")) {
+            return new Palette(Material.SANDSTONE, Material.SMOOTH_SANDSTONE);
+        }
+        
+        // Snow/Ice biomes - packed ice dominant
+        if (biomeName.contains("snow") || biomeName.contains("ice") || biomeName.contains("frozen")) {
+            return new Palette(Material.PACKED_ICE, Material.SPRUCE_PLANKS);
+        }
+        
+        // Mountain/Hill biomes - stone/cobblestone dominant
+        if (biomeName.contains("mountain") || biomeName.contains("hill") || biomeName.contains("peak") || 
+            biomeName.contains("stony")) {
+            return new Palette(Material.STONE, Material.COBBLESTONE);
+        }
+        
+        // Mangrove Swamp - mangrove wood dominant
+        if (biomeName.contains("mangrove")) {
+            return new Palette(Material.MANGROVE_PLANKS, Material.MUD_BRICKS);
+        }
+        
+        // Regular Swamp - mossy cobblestone with dark oak
+        if (biomeName.contains("swamp")) {
+            return new Palette(Material.MOSSY_COBBLESTONE, Material.DARK_OAK_PLANKS);
+        }
+        
+        // Dark Forest - dark oak dominant
+        if (biomeName.contains("dark_forest") || biomeName.contains("dark_oak")) {
+            return new Palette(Material.DARK_OAK_PLANKS, Material.COBBLESTONE);
+        }
+        
+        // Birch Forest - birch wood dominant
+        if (biomeName.contains("birch")) {
+            return new Palette(Material.BIRCH_PLANKS, Material.COBBLESTONE);
+        }
+        
+        // Taiga (spruce) - spruce wood dominant
+        if (biomeName.contains("taiga")) {
+            return new Palette(Material.SPRUCE_PLANKS, Material.COBBLESTONE);
+        }
+        
+        // Cherry Grove - cherry wood dominant
+        if (biomeName.contains("cherry")) {
+            return new Palette(Material.CHERRY_PLANKS, Material.STONE_BRICKS);
+        }
+        
+        // Jungle - jungle wood dominant
+        if (biomeName.contains("jungle")) {
+            return new Palette(Material.JUNGLE_PLANKS, Material.MOSSY_COBBLESTONE);
+        }
+        
+        // Savanna - acacia wood dominant
+        if (biomeName.contains("savanna")) {
+            return new Palette(Material.ACACIA_PLANKS, Material.COBBLESTONE);
+        }
+        
+        // Regular Forest - oak wood dominant
+        if (biomeName.contains("forest")) {
+            return new Palette(Material.OAK_PLANKS, Material.COBBLESTONE);
+        }
+        
+        // Plains - oak wood with stone bricks
+        if (biomeName.contains("plains")) {
+            return new Palette(Material.OAK_PLANKS, Material.STONE_BRICKS);
+        }
+        
+        // Badlands/Mesa - terracotta dominant
+        if (biomeName.contains("badlands") || biomeName.contains("mesa")) {
+            return new Palette(Material.RED_TERRACOTTA, Material.ORANGE_TERRACOTTA);
+        }
+        
+        // === NETHER BIOMES ===
+        
+        // Nether Wastes - classic nether fortress style
+        if (biomeName.contains("nether_wastes")) {
+            return new Palette(Material.NETHER_BRICKS, Material.RED_NETHER_BRICKS);
+        }
+        
+        // Crimson Forest - crimson fungal wood
+        if (biomeName.contains("crimson")) {
+            return new Palette(Material.CRIMSON_PLANKS, Material.NETHER_WART_BLOCK);
+        }
+        
+        // Warped Forest - warped fungal wood
+        if (biomeName.contains("warped")) {
+            return new Palette(Material.WARPED_PLANKS, Material.WARPED_WART_BLOCK);
+        }
+        
+        // Basalt Deltas - volcanic basalt and blackstone
+        if (biomeName.contains("basalt")) {
+            return new Palette(Material.POLISHED_BASALT, Material.BLACKSTONE);
+        }
+        
+        // Soul Sand Valley - eerie blackstone with soul sand
+        if (biomeName.contains("soul")) {
+            return new Palette(Material.POLISHED_BLACKSTONE_BRICKS, Material.SOUL_SAND);
+        }
+        
+        // Default fallback - stone bricks
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,366 @@
+package com.beaconwar.game;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * A castle design compiled once into flat arrays. Blocks refer to palette slots (wall and
+ * detail come from the biome palette) and are grouped by X/Z column around the beacon.
+ * Each column may have a foundation, filled from the ground up to the beacon's level,
+ * plus blocks at fixed heights from the beacon's level up.
+ *
+ * Besides the built-in castle, designs can be loaded from a YAML file:
+ * <pre>
+ * palette:          # one character each: wall, detail, air or a material name
+ *   W: wall
+ *   D: detail
+ *   G: GLOWSTONE
+ * origin: [7, 7]    # column (character) and row of the beacon in every grid
+ * foundation:       # rows run +Z, characters +X; ' ' and '.' leave the column alone
+ *   - "WWWWWWWWWWWWWWW"
+ *   - ...
+ * layers:           # one grid per height, starting at the beacon's level
+ *   - ["DWWWWWWWWWWWWWD", ...]
+ * </pre>
+ */
+public final class CastleTemplate {
+    
+    // Palette slots; wall and detail are resolved per castle, higher slots are fixed materials
+    static final byte WALL = 0;
+    static final byte DETAIL = 1;
+    static final byte AIR = 2;
+    static final byte NONE = -1;
+    private static final int FIRST_MATERIAL_SLOT = 3;
+    
+    // Built-in castle dimensions
+    private static final int WALL_RADIUS = 7;
+    private static final int WALL_HEIGHT = 4;
+    private static final int TOWER_HEIGHT = 6;
+    private static final int GATE_WIDTH = 3;
+    
+    private static final CastleTemplate STANDARD = buildStandard(false);
+    private static final CastleTemplate STANDARD_WITH_GATES = buildStandard(true);
+    
+    private final Material[] fixedMaterials;
+    
+    // Per column: offset from the beacon, foundation slot, and its range in the block arrays
+    private final int[] columnXs;
+    private final int[] columnZs;
+    private final byte[] foundations;
+    private final int[] blockStarts;
+    
+    // Per block: height above the beacon's level and palette slot
+    private final int[] blockDys;
+    private final byte[] blockSlots;
+    
+    private final int radius;
+    
+    private CastleTemplate(Material[] fixedMaterials, int[] columnXs, int[] columnZs, byte[] foundations,
+            int[] blockStarts, int[] blockDys, byte[] blockSlots) {
+        this.fixedMaterials = fixedMaterials;
+        this.columnXs = columnXs;
+        this.columnZs = columnZs;
+        this.foundations = foundations;
+        this.blockStarts = blockStarts;
+        this.blockDys = blockDys;
+        this.blockSlots = blockSlots;
+        
+        int reach = 0;
+        for (int c = 0; c < columnXs.length; c++) {
+            reach = Math.max(reach, Math.max(Math.abs(columnXs[c]), Math.abs(columnZs[c])));
+        }
+        this.radius = reach;
+    }
+    
+    /**
+     * The built-in castle: a square wall, four 2x2 corner towers and optional gates
+     */
+    public static CastleTemplate standard(boolean gates) {
+        return gates ? STANDARD_WITH_GATES : STANDARD;
+    }
+    
+    private static CastleTemplate buildStandard(boolean gates) {
+        Builder builder = new Builder();
+        
+        // Walls in a square, from the ground up to WALL_HEIGHT above the base
+        for (int i = -WALL_RADIUS; i <= WALL_RADIUS; i++) {
+            builder.wallColumn(i, WALL_RADIUS);
+            builder.wallColumn(i, -WALL_RADIUS);
+            builder.wallColumn(WALL_RADIUS, i);
+            builder.wallColumn(-WALL_RADIUS, i);
+        }
+        
+        // Corner towers (NE, SE, NW, SW), each 2x2 from its corner
+        for (int cornerX : new int[] {WALL_RADIUS, -WALL_RADIUS}) {
+            for (int cornerZ : new int[] {WALL_RADIUS, -WALL_RADIUS}) {
+                for (int dx = 0; dx <= 1; dx++) {
+                    for (int dz = 0; dz <= 1; dz++) {
+                        int x = cornerX + dx;
+                        int z = cornerZ + dz;
+                        builder.foundation(x, z, WALL);
+                        for (int dy = 0; dy < TOWER_HEIGHT; dy++) {
+                            builder.set(x, dy, z, (dy == 0 || dy == TOWER_HEIGHT - 1) ? DETAIL : WALL);
+                        }
+                        // Battlements on top (corners only)
+                        if (dx == dz) {
+                            builder.set(x, TOWER_HEIGHT, z, WALL);
+                        }
+                    }
+                }
+            }
+        }
+        
+        // Gates on north and south sides, cleared from the ground to near the top of the wall
+        if (gates) {
+            for (int gateZ : new int[] {WALL_RADIUS, -WALL_RADIUS}) {
+                for (int x = -GATE_WIDTH / 2; x <= GATE_WIDTH / 2; x++) {
+                    builder.foundation(x, gateZ, AIR);
+                    for (int dy = 0; dy < WALL_HEIGHT - 1; dy++) {
+                        builder.set(x, dy, gateZ, AIR);
+                    }
+                }
+                // Gate arch detail at top
+                builder.set(0, WALL_HEIGHT - 1, gateZ, DETAIL);
+            }
+        }
+        
+        return builder.compile();
+    }
+    
+    /**
+     * Load and compile a template file (format in the class comment)
+     * @throws IllegalArgumentException if the file is missing or malformed
+     */
+    public static CastleTemplate load(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("file not found: " + file.getPath());
+        }
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        Builder builder = new Builder();
+        
+        ConfigurationSection paletteSection = yaml.getConfigurationSection("palette");
+        if (paletteSection == null) {
+            throw new IllegalArgumentException("missing palette");
+        }
+        Map<Character, Byte> palette = new HashMap<>();
+        for (String key : paletteSection.getKeys(false)) {
+            if (key.length() != 1) {
+                throw new IllegalArgumentException("palette key '" + key + "' must be one character");
+            }
+            palette.put(key.charAt(0), builder.slotOf(paletteSection.getString(key)));
+        }
+        
+        List<Integer> origin = yaml.getIntegerList("origin");
+        if (origin.size() != 2) {
+            throw new IllegalArgumentException("origin must be [column, row]");
+        }
+        int originX = origin.get(0);
+        int originZ = origin.get(1);
+        
+        readGrid(yaml.getStringList("foundation"), originX, originZ, palette, (x, z, slot) -> builder.foundation(x, z, slot));
+        
+        List<?> layers = yaml.getList("layers");
+        if (layers == null || layers.isEmpty()) {
+            throw new IllegalArgumentException("missing layers");
+        }
+        for (int dy = 0; dy < layers.size(); dy++) {
+            if (!(layers.get(dy) instanceof List<?> rows)) {
+                throw new IllegalArgumentException("layer " + dy + " must be a list of rows");
+            }
+            int layerY = dy;
+            readGrid(rows, originX, originZ, palette, (x, z, slot) -> builder.set(x, layerY, z, slot));
+        }
+        
+        return builder.compile();
+    }
+    
+    private interface CellAction {
+        void accept(int x, int z, byte slot);
+    }
+    
+    private static void readGrid(List<?> rows, int originX, int originZ, Map<Character, Byte> palette, CellAction action) {
+        for (int row = 0; row < rows.size(); row++) {
+            String line = String.valueOf(rows.get(row));
+            for (int column = 0; column < line.length(); column++) {
+                char symbol = line.charAt(column);
+                if (symbol == ' ' || symbol == '.') {
+                    continue;
+                }
+                Byte slot = palette.get(symbol);
+                if (slot == null) {
+                    throw new IllegalArgumentException("symbol '" + symbol + "' is not in the palette");
+                }
+                action.accept(column - originX, row - originZ, slot);
+            }
+        }
+    }
+    
+    /**
+     * How far the castle reaches from the beacon in X and Z
+     */
+    public int getRadius() {
+        return radius;
+    }
+    
+    int getColumnCount() {
+        return columnXs.length;
+    }
+    
+    int getColumnX(int column) {
+        return columnXs[column];
+    }
+    
+    int getColumnZ(int column) {
+        return columnZs[column];
+    }
+    
+    /**
+     * Slot filled from the ground up to the beacon's level, or NONE
+     */
+    byte getFoundation(int column) {
+        return foundations[column];
+    }
+    
+    int getBlockStart(int column) {
+        return blockStarts[column];
+    }
+    
+    int getBlockEnd(int column) {
+        return blockStarts[column + 1];
+    }
+    
+    int getBlockDy(int block) {
+        return blockDys[block];
+    }
+    
+    byte getBlockSlot(int block) {
+        return blockSlots[block];
+    }
+    
+    /**
+     * Materials for every palette slot, with wall and detail taken from the biome palette
+     */
+    Material[] resolve(CastlePalettes.Palette palette) {
+        Material[] materials = new Material[FIRST_MATERIAL_SLOT + fixedMaterials.length];
+        materials[WALL] = palette.wall();
+        materials[DETAIL] = palette.detail();
+        materials[AIR] = Material.AIR;
+        System.arraycopy(fixedMaterials, 0, materials, FIRST_MATERIAL_SLOT, fixedMaterials.length);
+        return materials;
+    }
+    
+    /**
+     * Collects a design; later writes to the same block or foundation replace earlier ones
+     */
+    private static final class Builder {
+        
+        private static final class Column {
+            final int x;
+            final int z;
+            byte foundation = NONE;
+            final TreeMap<Integer, Byte> blocks = new TreeMap<>();
+            
+            Column(int x, int z) {
+                this.x = x;
+                this.z = z;
+            }
+        }
+        
+        private final List<Material> fixedMaterials = new ArrayList<>();
+        private final Map<Long, Column> columns = new LinkedHashMap<>();
+        
+        private Column column(int x, int z) {
+            return columns.computeIfAbsent(((long) x << 32) | (z & 0xFFFFFFFFL), key -> new Column(x, z));
+        }
+        
+        void set(int x, int dy, int z, byte slot) {
+            column(x, z).blocks.put(dy, slot);
+        }
+        
+        void foundation(int x, int z, byte slot) {
+            column(x, z).foundation = slot;
+        }
+        
+        void wallColumn(int x, int z) {
+            foundation(x, z, WALL);
+            for (int dy = 0; dy <= WALL_HEIGHT; dy++) {
+                set(x, dy, z, WALL);
+            }
+        }
+        
+        byte slotOf(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("empty palette entry");
+            }
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "wall" -> WALL;
+                case "detail" -> DETAIL;
+                case "air" -> AIR;
+                default -> fixedSlotOf(name);
+            };
+        }
+        
+        private byte fixedSlotOf(String name) {
+            Material material = Material.matchMaterial(name);
+            if (material == null || !material.isBlock()) {
+                throw new IllegalArgumentException("'" + name + "' is not a block");
+            }
+            int index = fixedMaterials.indexOf(material);
+            if (index < 0) {
+                if (FIRST_MATERIAL_SLOT + fixedMaterials.size() > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("too many palette materials");
+                }
+                index = fixedMaterials.size();
+                fixedMaterials.add(material);
+            }
+            return (byte) (FIRST_MATERIAL_SLOT + index);
+        }
+        
+        CastleTemplate compile() {
+            int columnCount = columns.size();
+            if (columnCount > 0xFFFF) {
+                throw new IllegalArgumentException("too many columns");
+            }
+            int[] columnXs = new int[columnCount];
+            int[] columnZs = new int[columnCount];
+            byte[] foundations = new byte[columnCount];
+            int[] blockStarts = new int[columnCount + 1];
+            
+            int blockCount = 0;
+            for (Column column : columns.values()) {
+                blockCount += column.blocks.size();
+            }
+            int[] blockDys = new int[blockCount];
+            byte[] blockSlots = new byte[blockCount];
+            
+            int c = 0;
+            int b = 0;
+            for (Column column : columns.values()) {
+                columnXs[c] = column.x;
+                columnZs[c] = column.z;
+                foundations[c] = column.foundation;
+                blockStarts[c] = b;
+                for (Map.Entry<Integer, Byte> block : column.blocks.entrySet()) {
+                    blockDys[b] = block.getKey();
+                    blockSlots[b] = block.getValue();
+                    b++;
+                }
+                c++;
+            }
+            blockStarts[columnCount] = b;
+            
+            return new CastleTemplate(fixedMaterials.toArray(new Material[0]), columnXs, columnZs, foundations,
+                    blockStarts, blockDys, blockSlots);
+        }
+    }
+}
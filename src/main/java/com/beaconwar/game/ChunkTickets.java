@@ -0,0 +1,78 @@
+package com.beaconwar.game;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Keeps the chunks the game depends on (beacons, spawns) loaded with plugin chunk tickets,
+ * so per-tick glass reads and respawns never hit an unloaded chunk. Released on reset.
+ *
+ * The server keeps a single ticket per chunk per plugin, so holders made with {@link #share()}
+ * reference-count their chunks: a ticket is only removed once every holder has released it.
+ */
+public class ChunkTickets {
+    
+    private final Plugin plugin;
+    
+    // Holders per chunk key, shared by every holder created through share()
+    private final Map<World, Map<Long, Integer>> holders;
+    
+    // Chunk keys (x in the high half, z in the low half) held per world
+    private final Map<World, Set<Long>> held = new HashMap<>();
+    
+    public ChunkTickets(Plugin plugin) {
+        this(plugin, new HashMap<>());
+    }
+    
+    private ChunkTickets(Plugin plugin, Map<World, Map<Long, Integer>> holders) {
+        this.plugin = plugin;
+        this.holders = holders;
+    }
+    
+    /**
+     * A separate holder whose tickets are counted together with this one's
+     */
+    public ChunkTickets share() {
+        return new ChunkTickets(plugin, holders);
+    }
+    
+    /**
+     * Hold the chunk containing a block position (no-op if already held)
+     */
+    public void hold(World world, int blockX, int blockZ) {
+        int chunkX = blockX >> 4;
+        int chunkZ = blockZ >> 4;
+        long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        if (held.computeIfAbsent(world, w -> new HashSet<>()).add(key)
+                && holders.computeIfAbsent(world, w -> new HashMap<>()).merge(key, 1, Integer::sum) == 1) {
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+    
+    public void hold(Location location) {
+        hold(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+    
+    /**
+     * Release every ticket this holder added; chunks another holder still needs stay loaded
+     */
+    public void releaseAll() {
+        for (Map.Entry<World, Set<Long>> entry : held.entrySet()) {
+            World world = entry.getKey();
+            Map<Long, Integer> counts = holders.get(world);
+            for (long key : entry.getValue()) {
+                if (counts.merge(key, -1, Integer::sum) == 0) {
+                    counts.remove(key);
+                    world.removePluginChunkTicket((int) (key >> 32), (int) key, plugin);
+                }
+            }
+        }
+        held.clear();
+    }
+}
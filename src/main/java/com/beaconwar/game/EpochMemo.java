@@ -0,0 +1,42 @@
+package com.beaconwar.game;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches a value derived from beacon ownership.
+ * The value is recomputed only when the ownership epoch has moved since the last read,
+ * so per-tick callers pay for the computation once per capture instead of 20 times a second.
+ */
+public class EpochMemo<T> {
+    
+    private static final long NEVER = Long.MIN_VALUE;
+    
+    private final LongSupplier epoch;
+    private final Supplier<T> compute;
+    
+    private long cachedEpoch = NEVER;
+    private T value;
+    
+    public EpochMemo(LongSupplier epoch, Supplier<T> compute) {
+        this.epoch = epoch;
+        this.compute = compute;
+    }
+    
+    public T get() {
+        long current = epoch.getAsLong();
+        if (current != cachedEpoch) {
+            value = compute.get();
+            cachedEpoch = current;
+        }
+        return value;
+    }
+    
+    /**
+     * Force a recompute on the next read (e.g. when the beacon manager is replaced)
+     */
+    public void invalidate() {
+        cachedEpoch = NEVER;
+        value = null;
+    }
+}
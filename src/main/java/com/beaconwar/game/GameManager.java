@@ -13,6 +13,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import org.bukkit.Bukkit;
@@ -30,6 +31,8 @@ import org.bukkit.scoreboard.Scoreboard;
 import org.bukkit.scoreboard.Team;
 
 import com.beaconwar.BeaconWarPlugin;
+import com.beaconwar.events.GameEndEvent;
+import com.beaconwar.events.GamePhaseChangeEvent;
 import com.beaconwar.model.TeamColor;
 
 import net.kyori.adventure.text.Component;
@@ -47,7 +50,23 @@ public class GameManager {
     private SpawnManager spawnManager;
     private ScoreManager scoreManager;
     private TerritoryManager territoryManager;
+    private StructureAuditor structureAuditor;
+    private BlockEditQueue setupEdits;
+    private BlockEditQueue restoreEdits;
+    
+    // Original terrain under everything setup built, restored by /bw reset
+    private TerrainJournal terrainJournal;
+    private final File terrainJournalFile;
     private EloManager eloManager;
+    private final PlayerPositionSampler positionSampler = new PlayerPositionSampler();
+    private final ChunkTickets chunkTickets;
+    private final CastlePalettes castlePalettes;
+    
+    // State derived from beacon ownership, recomputed only when the ownership epoch moves
+    private long derivedEpoch = Long.MIN_VALUE;
+    private final EpochMemo<BeaconTarget[]> actionBarTargets = new EpochMemo<>(this::ownershipEpoch, this::computeActionBarTargets);
+    private final EpochMemo<int[]> comebackResistance = new EpochMemo<>(this::ownershipEpoch, this::computeComebackResistance);
+    private final EpochMemo<BeaconPositions[]> enemyBeacons = new EpochMemo<>(this::ownershipEpoch, this::computeEnemyBeacons);
     
     private boolean gameActive = false;
     private boolean beaconsInitialized = false;
@@ -77,8 +96,14 @@ public class GameManager {
     private long pauseStartTime = 0;
     private long totalPausedTime = 0;
     
+    // Winner whose GameEndEvent was cancelled; not offered again until the end condition changes
+    private TeamColor vetoedWinner = null;
+    
     public GameManager(BeaconWarPlugin plugin) {
         this.plugin = plugin;
+        this.chunkTickets = new ChunkTickets(plugin);
+        this.castlePalettes = CastlePalettes.load(plugin);
+        this.terrainJournalFile = new File(plugin.getDataFolder(), "terrain-journal.bin.gz");
         setupTeams();
         setupScoreboard();
         scoreManager = new ScoreManager();
@@ -115,16 +140,28 @@ public class GameManager {
         // Note: Per-player scoreboards are created in updatePlayerScoreboard()
     }
     
-    public boolean setupBeacons(Player player) {
+    /**
+     * Place beacons and queue their structures. Candidate chunks load asynchronously and
+     * blocks are applied over several ticks; the game is only ready once onReady runs.
+     * @param onReady Run after the last block is placed (not run if placement fails)
+     * @return false if setup could not start
+     */
+    public boolean setupBeacons(Player player, Runnable onReady) {
         if (beaconsInitialized) {
             player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
                     .append(Component.text("Beacons are already set up!", NamedTextColor.YELLOW)));
             return false;
         }
-        
-        List<Player> allPlayers = new ArrayList<>(Bukkit.getOnlinePlayers());
-        beaconManager = new BeaconManager(allPlayers);
-        beaconManager.setCurrentPhase(currentPhase);
+        if (setupEdits != null) {
+            player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                    .append(Component.text("Setup is already in progress!", NamedTextColor.YELLOW)));
+            return false;
+        }
+        if (restoreEdits != null) {
+            player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                    .append(Component.text("Terrain is still being restored!", NamedTextColor.YELLOW)));
+            return false;
+        }
         
         // Load config values
         int spacing = plugin.getConfig().getInt("beacon-spacing", 200);
@@ -135,22 +172,181 @@ public class GameManager {
         double netherSpacingMultiplier = plugin.getConfig().getDouble("nether-spacing-multiplier", 0.7);
         boolean spawnNetherPortals = plugin.getConfig().getBoolean("spawn-nether-portals", true);
         
+        beaconManager = new BeaconManager(positionSampler, beaconsPerSide);
+        beaconManager.setCurrentPhase(currentPhase);
+        beaconManager.setCaptureDebounceTicks(plugin.getConfig().getInt("capture-debounce-ticks", 20));
+        invalidateDerivedState();
+        
         // Calculate effective spacing (may be reduced in Nether)
         boolean isNether = player.getWorld().getEnvironment() == org.bukkit.World.Environment.NETHER;
         int effectiveSpacing = isNether ? (int)(spacing * netherSpacingMultiplier) : spacing;
         
-        spawnManager = new SpawnManager(beaconManager, effectiveSpacing);
+        if (spawnManager != null) {
+            spawnManager.discard();
+        }
+        spawnManager = new SpawnManager(plugin, beaconManager, effectiveSpacing, chunkTickets);
         territoryManager = new TerritoryManager(beaconManager, effectiveSpacing);
         
-        BeaconPlacer placer = new BeaconPlacer(player, beaconManager, spacing, beaconsPerSide, groundSearchStartY, spawnCastles, spawnCastleGates, netherSpacingMultiplier, spawnNetherPortals);
-        boolean success = placer.placeAllBeacons();
+        BlockEditQueue edits = new BlockEditQueue(plugin, chunkTickets);
+        setupEdits = edits;
         
-        if (success) {
-            beaconsInitialized = true;
-            spawnManager.updateSpawns();
+        // Keep adding to an unrestored journal (e.g. setup again without a reset)
+        if (terrainJournal == null) {
+            terrainJournal = loadTerrainJournal(player);
+        }
+        edits.journalTo(terrainJournal);
+        BeaconPlacer placer = new BeaconPlacer(plugin, player, beaconManager, spacing, beaconsPerSide, groundSearchStartY, spawnCastles, loadCastleTemplate(spawnCastleGates), castlePalettes, netherSpacingMultiplier, spawnNetherPortals, edits);
+        placer.placeAllBeacons().thenAccept(placed -> {
+            if (edits.isCancelled()) {
+                return; // Reset while placing
+            }
+            if (!placed) {
+                // Nothing has been applied yet, so dropping the queue leaves the world untouched
+                setupEdits = null;
+                player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                        .append(Component.text("Beacon setup failed!", NamedTextColor.YELLOW)));
+                return;
+            }
+            
+            edits.run(player, "Building beacons",
+                    plugin.getConfig().getInt("setup-blocks-per-tick", 4000),
+                    plugin.getConfig().getLong("setup-ms-per-tick", 20),
+                    () -> {
+                        setupEdits = null;
+                        saveTerrainJournal();
+                        finishSetup();
+                        player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.GREEN)
+                                .append(Component.text("Beacon setup complete!", NamedTextColor.YELLOW)));
+                        if (onReady != null) {
+                            onReady.run();
+                        }
+                    });
+        });
+        return true;
+    }
+    
+    private void finishSetup() {
+        beaconsInitialized = true;
+        beaconManager.buildBeaconLine();
+        beaconManager.buildTopology(parseBeaconLinks());
+        
+        structureAuditor = new StructureAuditor(plugin, beaconManager);
+        
+        // Keep beacon chunks loaded so glass checks never load chunks synchronously
+        for (com.beaconwar.model.Beacon beacon : beaconManager.getAllBeacons()) {
+            chunkTickets.hold(beacon.getWorld(), beacon.getX(), beacon.getZ());
+        }
+        spawnManager.updateSpawns();
+        spawnManager.prepareFallbackSpawns();
+        territoryManager.refreshFrontier();
+        derivedEpoch = beaconManager.getOwnershipEpoch();
+    }
+    
+    /**
+     * The saved journal if one is waiting to be restored, otherwise a new empty one.
+     * An unreadable journal is renamed aside (never overwritten) and the admin is told.
+     */
+    private TerrainJournal loadTerrainJournal(Player admin) {
+        if (terrainJournalFile.isFile()) {
+            try {
+                return TerrainJournal.load(terrainJournalFile);
+            } catch (IOException e) {
+                File corrupt = new File(terrainJournalFile.getPath() + ".corrupt");
+                corrupt.delete();
+                boolean moved = terrainJournalFile.renameTo(corrupt);
+                plugin.getLogger().warning("Failed to load terrain journal: " + e.getMessage()
+                        + (moved ? " (kept as " + corrupt.getName() + ")" : " (could not rename it)"));
+                admin.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                        .append(Component.text("The terrain journal could not be read; terrain changed by the earlier setup can't be restored.", NamedTextColor.YELLOW)));
+            }
+        }
+        return new TerrainJournal();
+    }
+    
+    private void saveTerrainJournal() {
+        if (terrainJournal == null || terrainJournal.size() == 0) {
+            return;
+        }
+        try {
+            plugin.getDataFolder().mkdirs();
+            terrainJournal.save(terrainJournalFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save terrain journal: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Put back the original terrain under everything setup built, a batch per tick
+     */
+    private void restoreTerrain(Player admin) {
+        if (restoreEdits != null) {
+            return;
         }
+        TerrainJournal journal = terrainJournal != null ? terrainJournal : loadTerrainJournal(admin);
+        terrainJournal = null;
+        if (journal.size() == 0) {
+            return;
+        }
+        
+        BlockEditQueue edits = new BlockEditQueue(plugin, chunkTickets);
+        journal.restoreInto(edits);
+        restoreEdits = edits;
+        admin.sendMessage(Component.text("[Beacon War] ", NamedTextColor.GRAY)
+                .append(Component.text("Restoring " + journal.size() + " blocks of terrain...", NamedTextColor.YELLOW)));
         
-        return success;
+        // After a restart none of these chunks are loaded; load them first so no batch loads them synchronously
+        edits.preloadChunks().whenComplete((loaded, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Failed to preload terrain chunks; restoring anyway", error);
+            }
+            edits.run(admin, "Restoring terrain",
+                    plugin.getConfig().getInt("setup-blocks-per-tick", 4000),
+                    plugin.getConfig().getLong("setup-ms-per-tick", 20),
+                    () -> {
+                        restoreEdits = null;
+                        terrainJournalFile.delete();
+                        admin.sendMessage(Component.text("[Beacon War] ", NamedTextColor.GREEN)
+                                .append(Component.text("Terrain restored!", NamedTextColor.YELLOW)));
+                    });
+        });
+    }
+    
+    /**
+     * The castle design named by castle-template (castles/<name>.yml in the plugin folder),
+     * or the built-in castle if none is set or it fails to load
+     */
+    private CastleTemplate loadCastleTemplate(boolean gates) {
+        String name = plugin.getConfig().getString("castle-template", "");
+        if (name.isEmpty()) {
+            return CastleTemplate.standard(gates);
+        }
+        File file = new File(new File(plugin.getDataFolder(), "castles"), name + ".yml");
+        try {
+            return CastleTemplate.load(file);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Could not load castle template '" + name + "': " + e.getMessage() + " (using the built-in castle)");
+            return CastleTemplate.standard(gates);
+        }
+    }
+    
+    /**
+     * Read extra capture links ("a:b" beacon index pairs) from the beacon-links config list
+     */
+    private List<int[]> parseBeaconLinks() {
+        List<int[]> links = new ArrayList<>();
+        for (String entry : plugin.getConfig().getStringList("beacon-links")) {
+            String[] parts = entry.split(":");
+            try {
+                if (parts.length == 2) {
+                    links.add(new int[] { Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()) });
+                    continue;
+                }
+            } catch (NumberFormatException e) {
+                // Falls through to the warning
+            }
+            plugin.getLogger().warning("Ignoring invalid beacon-links entry '" + entry + "' (expected a:b)");
+        }
+        return links;
     }
     
     /**
@@ -167,6 +363,7 @@ public class GameManager {
         gameActive = true;
         gamePaused = false;
         totalPausedTime = 0;
+        vetoedWinner = null;
         currentPhase = GamePhase.CAPTURING;
         
         long now = System.currentTimeMillis();
@@ -176,7 +373,9 @@ public class GameManager {
         lastAmmoSupplyTime = now;
         gameDurationMs = minutes * 60 * 1000L;
         
-        scoreManager.reset();
+        // Scores are integrated from the ownership timeline on demand
+        long scoreInterval = plugin.getConfig().getInt("score-interval", 60) * 1000L;
+        scoreManager.track(beaconManager.startTimeline(this::gameClock), scoreInterval);
         
         // Set all players to survival mode
         for (Player player : Bukkit.getOnlinePlayers()) {
@@ -184,7 +383,7 @@ public class GameManager {
         }
         
         // Check if game is in the Nether and give portal supplies
-        boolean isNether = beaconManager.getAllBeacons().iterator().next().getLocation().getWorld()
+        boolean isNether = beaconManager.getAllBeacons().iterator().next().getWorld()
                 .getEnvironment() == org.bukkit.World.Environment.NETHER;
         if (isNether) {
             supplyNetherPortalItems();
@@ -218,10 +417,27 @@ public class GameManager {
                 .append(Component.text("Nether game! All players received obsidian and flint-and-steel.", NamedTextColor.GOLD)));
     }
     
+    /**
+     * Game time in milliseconds since start, excluding pauses (stands still while paused)
+     */
+    private long gameClock() {
+        long now = gamePaused ? pauseStartTime : System.currentTimeMillis();
+        return now - gameStartTime - totalPausedTime;
+    }
+    
+    private void finishTimeline() {
+        if (beaconManager != null && beaconManager.getTimeline() != null) {
+            beaconManager.getTimeline().finish();
+        }
+    }
+    
     /**
      * Stop the game without determining a winner (admin stop).
      */
     public void stopGame() {
+        Bukkit.getPluginManager().callEvent(new GameEndEvent(TeamColor.NEUTRAL, true));
+        
+        finishTimeline();
         gameActive = false;
         gamePaused = false;
         
@@ -233,10 +449,11 @@ public class GameManager {
     }
     
     /**
-     * Full reset - clears game state AND beacon positions.
+     * Full reset - clears game state AND beacon positions, and restores the terrain
+     * setup changed (over several ticks, progress shown to the admin).
      * Does NOT affect ELO ratings.
      */
-    public void resetGame() {
+    public void resetGame(Player admin) {
         // Stop any active game
         gameActive = false;
         gamePaused = false;
@@ -244,14 +461,28 @@ public class GameManager {
         // Clear all team data
         clearAllTeams();
         
+        // Stop a setup that is still building
+        if (setupEdits != null) {
+            setupEdits.cancel();
+            setupEdits = null;
+        }
+        
         // Clear beacon state
         if (beaconManager != null) {
             beaconManager.clear();
         }
         beaconsInitialized = false;
         beaconManager = null;
+        // Stop fallback spawn searches before they take tickets on the old map
+        if (spawnManager != null) {
+            spawnManager.discard();
+        }
+        chunkTickets.releaseAll();
+        restoreTerrain(admin);
+        invalidateDerivedState();
         spawnManager = null;
         territoryManager = null;
+        structureAuditor = null;
         
         // Reset scores
         scoreManager.reset();
@@ -280,6 +511,14 @@ public class GameManager {
      * @param winner The winning team (NEUTRAL = tie)
      */
     public void endGame(TeamColor winner) {
+        GameEndEvent event = new GameEndEvent(winner, false);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return;
+        }
+        
+        // Freeze scores at this moment
+        finishTimeline();
         gameActive = false;
         gamePaused = false;
         
@@ -328,10 +567,9 @@ public class GameManager {
                     .append(Component.text("Final Scores - Red: " + scoreManager.getScore(TeamColor.RED) + 
                             " | Blue: " + scoreManager.getScore(TeamColor.BLUE), NamedTextColor.WHITE)));
         } else {
-            Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
             Bukkit.broadcast(Component.text("[Beacon War] ", NamedTextColor.AQUA)
-                    .append(Component.text("Final Beacons - Red: " + counts.get(TeamColor.RED) + 
-                            " | Blue: " + counts.get(TeamColor.BLUE), NamedTextColor.WHITE)));
+                    .append(Component.text("Final Beacons - Red: " + beaconManager.getTeamCount(TeamColor.RED) + 
+                            " | Blue: " + beaconManager.getTeamCount(TeamColor.BLUE), NamedTextColor.WHITE)));
         }
         
         // Clear all team data (after ELO calculation)
@@ -360,10 +598,9 @@ public class GameManager {
      * Determine the winner based on current state and win condition mode.
      */
     public TeamColor determineWinner() {
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-        int redBeacons = counts.get(TeamColor.RED);
-        int blueBeacons = counts.get(TeamColor.BLUE);
-        int totalBeacons = redBeacons + blueBeacons + counts.get(TeamColor.NEUTRAL);
+        int redBeacons = beaconManager.getTeamCount(TeamColor.RED);
+        int blueBeacons = beaconManager.getTeamCount(TeamColor.BLUE);
+        int totalBeacons = beaconManager.getBeaconCount();
         
         // If one team has ALL beacons, they win immediately
         if (redBeacons == totalBeacons) return TeamColor.RED;
@@ -443,9 +680,26 @@ public class GameManager {
             return;
         }
         
+        // Sample every player's position once; all systems below read from the sampler
+        positionSampler.sampleAll();
+        
         // Always update beacon ownership even when paused (so we can detect all-beacon capture)
         beaconManager.updateAllBeaconOwnership();
         
+        // Team spawn points and territory frontiers only move when a beacon changes hands
+        long epoch = beaconManager.getOwnershipEpoch();
+        if (epoch != derivedEpoch) {
+            spawnManager.updateSpawns();
+            territoryManager.refreshFrontier();
+            derivedEpoch = epoch;
+        }
+        
+        // Track territory crossings (fires PlayerTerritoryChangeEvent)
+        territoryManager.updatePlayerTerritories(positionSampler);
+        
+        // Repair a few beacon structure blocks per tick (keeps beams clear for capturing)
+        structureAuditor.auditStep(plugin.getConfig().getInt("structure-audit-blocks-per-tick", 32));
+        
         // Check for victory conditions (even when paused for all-beacon capture)
         if (gameActive) {
             checkVictoryConditions();
@@ -474,9 +728,9 @@ public class GameManager {
             phaseStartTime = currentTime - totalPausedTime;
         }
         
-        // Check for score update
+        // Announce scores (integrated from the ownership timeline, nothing is awarded here)
         if (currentTime - effectiveScoreStart >= scoreInterval) {
-            awardScore();
+            scoreManager.announceScores();
             lastScoreTime = currentTime - totalPausedTime;
         }
         
@@ -501,9 +755,6 @@ public class GameManager {
         // Auto-supply team materials
         supplyTeamMaterials();
         
-        // Update team spawn points
-        spawnManager.updateSpawns();
-        
         // Update action bar with phase timer
         updateActionBar();
         
@@ -513,31 +764,48 @@ public class GameManager {
     
     /**
      * Check for victory conditions and end game if met.
+     * A cancelled GameEndEvent is not fired again until the end condition stops holding
+     * or names a different winner.
      */
     private void checkVictoryConditions() {
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-        int redBeacons = counts.get(TeamColor.RED);
-        int blueBeacons = counts.get(TeamColor.BLUE);
-        int totalBeacons = redBeacons + blueBeacons + counts.get(TeamColor.NEUTRAL);
+        TeamColor winner = pendingWinner();
+        if (winner == null || winner != vetoedWinner) {
+            vetoedWinner = null;
+        }
+        if (winner == null || vetoedWinner != null) {
+            return;
+        }
+        
+        endGame(winner);
+        if (gameActive) {
+            vetoedWinner = winner;
+        }
+    }
+    
+    /**
+     * @return The team that has won right now (NEUTRAL = tie), or null if the game should go on
+     */
+    private TeamColor pendingWinner() {
+        int redBeacons = beaconManager.getTeamCount(TeamColor.RED);
+        int blueBeacons = beaconManager.getTeamCount(TeamColor.BLUE);
+        int totalBeacons = beaconManager.getBeaconCount();
         
         // Check for all-beacon capture (immediate win)
         if (redBeacons == totalBeacons && totalBeacons > 0) {
-            endGame(TeamColor.RED);
-            return;
+            return TeamColor.RED;
         }
         if (blueBeacons == totalBeacons && totalBeacons > 0) {
-            endGame(TeamColor.BLUE);
-            return;
+            return TeamColor.BLUE;
         }
         
         // Check for time expiry (if time limit is set)
         if (gameDurationMs > 0 && !gamePaused) {
             long elapsed = System.currentTimeMillis() - gameStartTime - totalPausedTime;
             if (elapsed >= gameDurationMs) {
-                TeamColor winner = determineWinner();
-                endGame(winner);
+                return determineWinner();
             }
         }
+        return null;
     }
     
     private void updateActionBar() {
@@ -570,38 +838,12 @@ public class GameManager {
             
             // Add target beacon coordinates (neutral first, then enemy front)
             if (playerTeam != TeamColor.NEUTRAL && beaconManager != null) {
-                com.beaconwar.model.Beacon targetBeacon = null;
-                String targetLabel = "";
-                NamedTextColor targetColor = NamedTextColor.WHITE;
-                
-                // Check for neutral beacon first
-                com.beaconwar.model.Beacon neutralBeacon = beaconManager.getAnyNeutralBeacon();
-                if (neutralBeacon != null) {
-                    targetBeacon = neutralBeacon;
-                    targetLabel = "Neutral Beacon: ";
-                    targetColor = NamedTextColor.WHITE;
-                } else {
-                    // Otherwise show enemy frontmost beacon
-                    TeamColor enemyTeam = playerTeam == TeamColor.RED ? TeamColor.BLUE : TeamColor.RED;
-                    com.beaconwar.model.Beacon frontBeacon = beaconManager.getFrontmostBeacon(enemyTeam);
-                    if (frontBeacon != null) {
-                        targetBeacon = frontBeacon;
-                        targetLabel = "Enemy Front: ";
-                        targetColor = enemyTeam.getChatColor();
-                    }
-                }
-                
-                if (targetBeacon != null) {
-                    org.bukkit.Location loc = targetBeacon.getLocation();
-                    actionBar = actionBar
-                            .append(Component.text(" | ", NamedTextColor.DARK_GRAY))
-                            .append(Component.text(targetLabel, NamedTextColor.GRAY))
-                            .append(Component.text(String.format("(%d, %d, %d)", 
-                                    loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()), 
-                                    targetColor));
+                BeaconTarget target = actionBarTargets.get()[playerTeam.getId()];
+                if (target != null) {
+                    actionBar = actionBar.append(target.text());
                     
                     // Update compass to point to target
-                    updateCompass(player, loc);
+                    updateCompass(player, target.location());
                 }
             }
             
@@ -609,16 +851,55 @@ public class GameManager {
         }
     }
     
+    /**
+     * Action bar target for each team (indexed by team id), memoized on the ownership epoch
+     */
+    private BeaconTarget[] computeActionBarTargets() {
+        BeaconTarget[] targets = new BeaconTarget[TeamColor.values().length];
+        
+        // Check for neutral beacon first
+        com.beaconwar.model.Beacon neutralBeacon = beaconManager.getAnyNeutralBeacon();
+        for (TeamColor team : new TeamColor[] { TeamColor.RED, TeamColor.BLUE }) {
+            if (neutralBeacon != null) {
+                targets[team.getId()] = BeaconTarget.of(neutralBeacon, "Neutral Beacon: ", NamedTextColor.WHITE);
+            } else {
+                // Otherwise show enemy frontmost beacon
+                TeamColor enemyTeam = team == TeamColor.RED ? TeamColor.BLUE : TeamColor.RED;
+                com.beaconwar.model.Beacon frontBeacon = beaconManager.getFrontmostBeacon(enemyTeam);
+                if (frontBeacon != null) {
+                    targets[team.getId()] = BeaconTarget.of(frontBeacon, "Enemy Front: ", enemyTeam.getChatColor());
+                }
+            }
+        }
+        return targets;
+    }
+    
+    /**
+     * A beacon the action bar and compass point a team at
+     */
+    private record BeaconTarget(org.bukkit.Location location, Component text) {
+        static BeaconTarget of(com.beaconwar.model.Beacon beacon, String label, NamedTextColor color) {
+            org.bukkit.Location loc = beacon.getLocation();
+            Component text = Component.text(" | ", NamedTextColor.DARK_GRAY)
+                    .append(Component.text(label, NamedTextColor.GRAY))
+                    .append(Component.text(String.format("(%d, %d, %d)", 
+                            loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()), 
+                            color));
+            return new BeaconTarget(loc, text);
+        }
+    }
+    
     private void updateScoreboard() {
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
+        int redBeacons = beaconManager.getTeamCount(TeamColor.RED);
+        int blueBeacons = beaconManager.getTeamCount(TeamColor.BLUE);
         
         // Update scoreboard for each player individually
         for (Player player : Bukkit.getOnlinePlayers()) {
-            updatePlayerScoreboard(player, counts);
+            updatePlayerScoreboard(player, redBeacons, blueBeacons);
         }
     }
     
-    private void updatePlayerScoreboard(Player player, Map<TeamColor, Integer> counts) {
+    private void updatePlayerScoreboard(Player player, int redBeacons, int blueBeacons) {
         // Get or create a scoreboard for this player
         org.bukkit.scoreboard.Scoreboard scoreboard = player.getScoreboard();
         
@@ -657,14 +938,14 @@ public class GameManager {
         if (isScoreMode) {
             objective.getScore("  Score: §f" + scoreManager.getScore(TeamColor.RED)).setScore(line--);
         }
-        objective.getScore("  Beacons: §f" + counts.get(TeamColor.RED)).setScore(line--);
+        objective.getScore("  Beacons: §f" + redBeacons).setScore(line--);
         objective.getScore(" ").setScore(line--);
         
         objective.getScore("§9§lBlue Team:").setScore(line--);
         if (isScoreMode) {
             objective.getScore("  Score: §f" + scoreManager.getScore(TeamColor.BLUE)).setScore(line--);
         }
-        objective.getScore("  Beacons: §f" + counts.get(TeamColor.BLUE)).setScore(line--);
+        objective.getScore("  Beacons: §f" + blueBeacons).setScore(line--);
         objective.getScore("  ").setScore(line--);
         
         // Add THIS player's status info
@@ -673,8 +954,9 @@ public class GameManager {
             objective.getScore("§7Drop Status:").setScore(line--);
             
             // Check if player is in a different dimension than the beacons
-            org.bukkit.World beaconWorld = beaconManager.getBeacon(0).getLocation().getWorld();
-            boolean inDifferentDimension = !player.getWorld().equals(beaconWorld);
+            int slot = positionSampler.slotOf(player);
+            org.bukkit.World beaconWorld = beaconManager.getBeacon(0).getWorld();
+            boolean inDifferentDimension = !positionSampler.isInWorld(slot, beaconWorld);
             
             if (inDifferentDimension) {
                 // Player is in a different dimension - they always keep inventory
@@ -684,7 +966,7 @@ public class GameManager {
                 
                 if (dropMode.equalsIgnoreCase("absolute_position")) {
                     // Absolute position mode: show beacon index and drop percentage
-                    double beaconIndex = beaconManager.getInterpolatedBeaconIndex(player.getLocation().getX());
+                    double beaconIndex = beaconManager.getInterpolatedBeaconIndex(positionSampler.getX(slot), positionSampler.getZ(slot));
                     
                     // Calculate enemy distance (positive = in enemy territory)
                     double enemyDistance;
@@ -709,9 +991,9 @@ public class GameManager {
                     objective.getScore("  Position: " + posColor + posText).setScore(line--);
                     objective.getScore("  Drop: " + dropColor + dropText).setScore(line--);
                 } else {
-                    // Territory mode: show territory and keep inventory status
-                    TeamColor territory = territoryManager.getTerritoryAt(player.getLocation());
-                    boolean hasKeepInv = isInHomeTerritory(player) && currentPhase == GamePhase.CAPTURING;
+                    // Territory mode: show territory and keep inventory status (tracked this tick)
+                    TeamColor territory = territoryManager.getTerritory(slot);
+                    boolean hasKeepInv = territoryManager.isInTerritory(slot, playerTeam) && currentPhase == GamePhase.CAPTURING;
                     
                     String territoryText = switch (territory) {
                         case RED -> "§cRed";
@@ -830,7 +1112,13 @@ public class GameManager {
     }
     
     private void switchPhase() {
-        currentPhase = currentPhase.next();
+        GamePhaseChangeEvent event = new GamePhaseChangeEvent(currentPhase, currentPhase.next());
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return; // Caller restarts the phase timer, so the current phase runs again
+        }
+        
+        currentPhase = event.getTo();
         phaseStartTime = System.currentTimeMillis();
         
         // Update beacon manager with current phase
@@ -861,18 +1149,8 @@ public class GameManager {
                 .append(Component.text(currentPhase.getDisplayName(), currentPhase.getColor())));
     }
     
-    private void awardScore() {
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-        scoreManager.awardPoints(counts);
-    }
-    
     private void applyResistanceBuffs() {
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-        int redBeacons = counts.get(TeamColor.RED);
-        int blueBeacons = counts.get(TeamColor.BLUE);
-        
-        // Load comeback resistance levels from config (index = beacon count, value = resistance level)
-        List<Integer> comebackResistanceLevels = plugin.getConfig().getIntegerList("comeback-resistance-levels");
+        int[] teamResistance = comebackResistance.get();
         
         for (Player player : Bukkit.getOnlinePlayers()) {
             TeamColor playerTeam = getPlayerTeam(player);
@@ -880,13 +1158,7 @@ public class GameManager {
                 continue;
             }
             
-            int teamBeacons = (playerTeam == TeamColor.RED) ? redBeacons : blueBeacons;
-            int comebackResistance = 0;
-            
-            // Look up comeback resistance level from config array
-            if (teamBeacons < comebackResistanceLevels.size()) {
-                comebackResistance = comebackResistanceLevels.get(teamBeacons);
-            }
+            int comebackResistance = teamResistance[playerTeam.getId()];
             
             // Get player's assigned resistance (for team balancing)
             int assignedResistance = playerAssignedResistance.getOrDefault(player.getName(), 0);
@@ -908,6 +1180,25 @@ public class GameManager {
         }
     }
     
+    /**
+     * Comeback resistance level for each team (indexed by team id), memoized on the ownership epoch
+     */
+    private int[] computeComebackResistance() {
+        // Load comeback resistance levels from config (index = beacon count, value = resistance level)
+        List<Integer> comebackResistanceLevels = plugin.getConfig().getIntegerList("comeback-resistance-levels");
+        
+        int[] levels = new int[TeamColor.values().length];
+        for (TeamColor team : new TeamColor[] { TeamColor.RED, TeamColor.BLUE }) {
+            int teamBeacons = beaconManager.getTeamCount(team);
+            
+            // Look up comeback resistance level from config array
+            if (teamBeacons < comebackResistanceLevels.size()) {
+                levels[team.getId()] = comebackResistanceLevels.get(teamBeacons);
+            }
+        }
+        return levels;
+    }
+    
     private void supplyTeamMaterials() {
         for (Player player : Bukkit.getOnlinePlayers()) {
             TeamColor team = getPlayerTeam(player);
@@ -952,7 +1243,7 @@ public class GameManager {
                     pickaxe.addEnchantment(fortune, 2);
                 }
                 // Add Efficiency for Nether games (helps mine netherrack faster)
-                boolean isNetherGame = beaconManager.getBeacon(0).getLocation().getWorld()
+                boolean isNetherGame = beaconManager.getBeacon(0).getWorld()
                         .getEnvironment() == org.bukkit.World.Environment.NETHER;
                 if (isNetherGame) {
                     Enchantment efficiency = Enchantment.getByKey(NamespacedKey.minecraft("efficiency"));
@@ -1073,6 +1364,7 @@ public class GameManager {
         }
         
         int range = plugin.getConfig().getInt("mining-fatigue-range", 20);
+        double rangeSquared = (double) range * range;
         
         for (Player player : Bukkit.getOnlinePlayers()) {
             TeamColor playerTeam = getPlayerTeam(player);
@@ -1080,11 +1372,17 @@ public class GameManager {
                 continue;
             }
             
-            // Check if near enemy beacon (must be in same world)
-            boolean nearEnemyBeacon = beaconManager.getAllBeacons().stream()
-                    .filter(beacon -> beacon.getOwner() != TeamColor.NEUTRAL && beacon.getOwner() != playerTeam)
-                    .filter(beacon -> beacon.getLocation().getWorld().equals(player.getWorld()))
-                    .anyMatch(beacon -> player.getLocation().distance(beacon.getLocation()) <= range);
+            // Check if near enemy beacon (distance is infinite across worlds)
+            int slot = positionSampler.slotOf(player);
+            BeaconPositions enemies = enemyBeacons.get()[playerTeam.getId()];
+            boolean nearEnemyBeacon = false;
+            for (int i = 0; i < enemies.coords().length; i += 3) {
+                if (positionSampler.distanceSquared(slot, enemies.world(), 
+                        enemies.coords()[i], enemies.coords()[i + 1], enemies.coords()[i + 2]) <= rangeSquared) {
+                    nearEnemyBeacon = true;
+                    break;
+                }
+            }
             
             if (nearEnemyBeacon) {
                 // Apply mining fatigue for 2 seconds (won't stack beyond existing)
@@ -1100,6 +1398,52 @@ public class GameManager {
         }
     }
     
+    /**
+     * Positions of the beacons each team must not mine near (indexed by team id),
+     * memoized on the ownership epoch
+     */
+    private BeaconPositions[] computeEnemyBeacons() {
+        BeaconPositions[] positions = new BeaconPositions[TeamColor.values().length];
+        for (TeamColor team : TeamColor.values()) {
+            List<com.beaconwar.model.Beacon> enemies = new ArrayList<>();
+            for (com.beaconwar.model.Beacon beacon : beaconManager.getAllBeacons()) {
+                TeamColor owner = beaconManager.getSettledOwner(beacon);
+                if (owner != TeamColor.NEUTRAL && owner != team) {
+                    enemies.add(beacon);
+                }
+            }
+            
+            // Packed x, y, z triples; all beacons share one world
+            double[] coords = new double[enemies.size() * 3];
+            org.bukkit.World world = null;
+            for (int i = 0; i < enemies.size(); i++) {
+                com.beaconwar.model.Beacon beacon = enemies.get(i);
+                world = beacon.getWorld();
+                coords[i * 3] = beacon.getX();
+                coords[i * 3 + 1] = beacon.getY();
+                coords[i * 3 + 2] = beacon.getZ();
+            }
+            positions[team.getId()] = new BeaconPositions(world, coords);
+        }
+        return positions;
+    }
+    
+    private record BeaconPositions(org.bukkit.World world, double[] coords) {}
+    
+    private long ownershipEpoch() {
+        return beaconManager != null ? beaconManager.getOwnershipEpoch() : Long.MIN_VALUE;
+    }
+    
+    /**
+     * Drop every memo derived from beacon ownership (the beacon manager was replaced)
+     */
+    private void invalidateDerivedState() {
+        derivedEpoch = Long.MIN_VALUE;
+        actionBarTargets.invalidate();
+        comebackResistance.invalidate();
+        enemyBeacons.invalidate();
+    }
+    
     /**
      * Add a player to a team.
      */
@@ -1207,8 +1551,6 @@ public class GameManager {
             return;
         }
         
-        Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-        
         player.sendMessage(Component.text("=== Beacon War Status ===", NamedTextColor.AQUA));
         player.sendMessage(Component.text("Game Active: ", NamedTextColor.GRAY)
                 .append(Component.text(gameActive ? "Yes" : "No", 
@@ -1224,11 +1566,11 @@ public class GameManager {
         }
         
         player.sendMessage(Component.text("Red Beacons: ", NamedTextColor.RED)
-                .append(Component.text(String.valueOf(counts.get(TeamColor.RED)), NamedTextColor.WHITE)));
+                .append(Component.text(String.valueOf(beaconManager.getTeamCount(TeamColor.RED)), NamedTextColor.WHITE)));
         player.sendMessage(Component.text("Blue Beacons: ", NamedTextColor.BLUE)
-                .append(Component.text(String.valueOf(counts.get(TeamColor.BLUE)), NamedTextColor.WHITE)));
+                .append(Component.text(String.valueOf(beaconManager.getTeamCount(TeamColor.BLUE)), NamedTextColor.WHITE)));
         player.sendMessage(Component.text("Neutral Beacons: ", NamedTextColor.YELLOW)
-                .append(Component.text(String.valueOf(counts.get(TeamColor.NEUTRAL)), NamedTextColor.WHITE)));
+                .append(Component.text(String.valueOf(beaconManager.getTeamCount(TeamColor.NEUTRAL)), NamedTextColor.WHITE)));
         
         // Only show scores in score mode
         if (plugin.getConfig().getString("win-condition", "score").equalsIgnoreCase("score")) {
@@ -1266,9 +1608,27 @@ public class GameManager {
                         " | Blue: " + scoreManager.getScore(TeamColor.BLUE));
             }
             if (beaconManager != null) {
-                Map<TeamColor, Integer> counts = beaconManager.getTeamCounts();
-                writer.println("Final Beacons - Red: " + counts.get(TeamColor.RED) + 
-                        " | Blue: " + counts.get(TeamColor.BLUE));
+                writer.println("Final Beacons - Red: " + beaconManager.getTeamCount(TeamColor.RED) + 
+                        " | Blue: " + beaconManager.getTeamCount(TeamColor.BLUE));
+            }
+            writer.println("Beacon-Seconds Held - Red: " + scoreManager.getBeaconSeconds(TeamColor.RED) + 
+                    " | Blue: " + scoreManager.getBeaconSeconds(TeamColor.BLUE));
+            
+            // Log per-beacon contest history from the ownership timeline
+            OwnershipTimeline timeline = beaconManager != null ? beaconManager.getTimeline() : null;
+            if (timeline != null) {
+                writer.println("--- Beacon History ---");
+                for (com.beaconwar.model.Beacon beacon : beaconManager.getSortedBeacons()) {
+                    int index = beacon.getIndex();
+                    StringBuilder history = new StringBuilder();
+                    for (int i = 0; i < timeline.getHistorySize(index); i++) {
+                        history.append(' ').append(timeline.getHistoryOwner(index, i).name())
+                                .append('@').append(timeline.getHistoryTime(index, i) / 1000).append('s');
+                    }
+                    writer.println("  Beacon " + index + ": " + timeline.getChangeCount(index) + " changes, held Red " + 
+                            timeline.getHeldMillis(index, TeamColor.RED) / 1000 + "s / Blue " + 
+                            timeline.getHeldMillis(index, TeamColor.BLUE) / 1000 + "s |" + history);
+                }
             }
             
             // Log teams
@@ -1303,9 +1663,23 @@ public class GameManager {
     
     public void cleanup() {
         gameActive = false;
+        
+        // Anything setup already placed can still be restored after a restart
+        if (setupEdits != null) {
+            setupEdits.cancel();
+            saveTerrainJournal();
+        }
+        // An unfinished restore keeps its journal file and runs again on the next /bw reset
+        if (restoreEdits != null) {
+            restoreEdits.cancel();
+        }
+        if (spawnManager != null) {
+            spawnManager.discard();
+        }
         if (beaconManager != null) {
             beaconManager.clear();
         }
+        chunkTickets.releaseAll();
         
         // Reset all players to main scoreboard
         for (Player player : Bukkit.getOnlinePlayers()) {
@@ -1345,6 +1719,10 @@ public class GameManager {
         return eloManager;
     }
     
+    public PlayerPositionSampler getPositionSampler() {
+        return positionSampler;
+    }
+    
     public long getGameTimeRemainingMs() {
         if (gameDurationMs <= 0) return -1;  // No time limit
         long elapsed = System.currentTimeMillis() - gameStartTime - totalPausedTime;
@@ -1377,7 +1755,9 @@ public class GameManager {
             return false;
         }
         TeamColor playerTeam = getPlayerTeam(player);
-        return territoryManager.isInTerritory(player.getLocation(), playerTeam);
+        int slot = positionSampler.slotOf(player);
+        territoryManager.updatePlayer(positionSampler, slot);
+        return territoryManager.isInTerritory(slot, playerTeam);
     }
     
     /**
@@ -0,0 +1,103 @@
+package com.beaconwar.game;
+
+import org.bukkit.Material;
+
+/**
+ * Material classifications used in hot loops (ground scans, block events, death drops).
+ * Computed once per Material ordinal when the class loads, so no check ever builds or
+ * scans a name String.
+ */
+public final class MaterialTables {
+    
+    private static final int LEAVES = 1;
+    private static final int WOOD = 1 << 1;         // Logs, stems and wood blocks
+    private static final int FLUID = 1 << 2;        // Water or lava
+    private static final int STAINED_GLASS = 1 << 3;
+    private static final int BEACON_GROUND = 1 << 4; // Beacons may stand on it
+    private static final int CASTLE_GROUND = 1 << 5; // Castle walls may stand on it
+    private static final int NEVER_DROP = 1 << 6;   // Always kept on death
+    private static final int WATER_HAZARD = 1 << 7; // Beacons avoid it in the Overworld
+    private static final int LAVA_HAZARD = 1 << 8;  // Beacons avoid it in the Nether
+    
+    private static final short[] FLAGS;
+    
+    static {
+        Material[] materials = Material.values();
+        FLAGS = new short[materials.length];
+        for (Material material : materials) {
+            String name = material.name();
+            int flags = 0;
+            
+            if (name.contains("LEAVES")) {
+                flags |= LEAVES;
+            }
+            if (name.contains("LOG") || name.contains("WOOD")) {
+                flags |= WOOD;
+            }
+            if (material == Material.WATER || material == Material.LAVA) {
+                flags |= FLUID;
+            }
+            if (name.endsWith("STAINED_GLASS")) {
+                flags |= STAINED_GLASS;
+            }
+            
+            // Valid beacon ground = any block except air, leaves, and wood
+            if (!material.isAir() && (flags & (LEAVES | WOOD)) == 0) {
+                flags |= BEACON_GROUND;
+            }
+            // Valid castle ground = any block except air, water, lava, or leaves
+            if (!material.isAir() && (flags & (LEAVES | FLUID)) == 0) {
+                flags |= CASTLE_GROUND;
+            }
+            
+            FLAGS[material.ordinal()] = (short) flags;
+        }
+        
+        // Beacons in water (Overworld) or lava (Nether) are placed elsewhere if possible
+        FLAGS[Material.WATER.ordinal()] |= WATER_HAZARD;
+        FLAGS[Material.LAVA.ordinal()] |= LAVA_HAZARD;
+        
+        // Items that should never drop on death
+        for (Material material : new Material[] {
+                Material.BOW,
+                Material.CROSSBOW,
+                Material.BLUE_STAINED_GLASS,
+                Material.RED_STAINED_GLASS,
+                Material.COMPASS,
+                Material.BLUE_WOOL,
+                Material.RED_WOOL,
+                Material.IRON_PICKAXE}) {
+            FLAGS[material.ordinal()] |= NEVER_DROP;
+        }
+    }
+    
+    private MaterialTables() {
+    }
+    
+    private static boolean has(Material material, int flag) {
+        return (FLAGS[material.ordinal()] & flag) != 0;
+    }
+    
+    /**
+     * The liquid beacon placement avoids: water in the Overworld, lava in the Nether
+     */
+    public static boolean isHazard(Material material, boolean nether) {
+        return has(material, nether ? LAVA_HAZARD : WATER_HAZARD);
+    }
+    
+    public static boolean isStainedGlass(Material material) {
+        return has(material, STAINED_GLASS);
+    }
+    
+    public static boolean isBeaconGround(Material material) {
+        return has(material, BEACON_GROUND);
+    }
+    
+    public static boolean isCastleGround(Material material) {
+        return has(material, CASTLE_GROUND);
+    }
+    
+    public static boolean isNeverDrop(Material material) {
+        return has(material, NEVER_DROP);
+    }
+}
@@ -0,0 +1,171 @@
+package com.beaconwar.game;
+
+import java.util.function.LongSupplier;
+
+import com.beaconwar.model.TeamColor;
+
+/**
+ * Records every settled ownership change with its game-clock time (ms since start, pauses excluded).
+ * Each beacon keeps its recent changes in a fixed-size primitive ring buffer, and per-team held
+ * time is integrated as changes close, so scores and "beacon-seconds held" are exact and computed
+ * only when someone asks - no timer work per tick.
+ */
+public class OwnershipTimeline {
+    
+    // Changes kept per beacon for contest history (older ones still count toward held time)
+    private static final int HISTORY_PER_BEACON = 32;
+    private static final TeamColor[] TEAMS = TeamColor.values();
+    private static final int TEAM_COUNT = TEAMS.length;
+    
+    private final LongSupplier clock;
+    private final int offset;
+    
+    // Ring buffers: beacon slot * HISTORY_PER_BEACON + position
+    private final long[] changeTimes;
+    private final byte[] changeOwners;
+    private final int[] historyHeads;
+    private final int[] historySizes;
+    private final int[] changeCounts;
+    
+    // Current holder of each beacon and since when
+    private final byte[] owners;
+    private final long[] ownedSince;
+    
+    // Held time already closed off: per team, and per beacon slot * TEAM_COUNT + team
+    private final long[] closedHeld = new long[TEAM_COUNT];
+    private final long[] closedHeldByBeacon;
+    
+    private long endedAt = -1;
+    
+    /**
+     * @param clock Game clock in milliseconds
+     * @param initialOwners Team id per beacon slot at the start of the game
+     * @param offset Added to a beacon index to get its slot
+     */
+    public OwnershipTimeline(LongSupplier clock, byte[] initialOwners, int offset) {
+        this.clock = clock;
+        this.offset = offset;
+        
+        int slots = initialOwners.length;
+        changeTimes = new long[slots * HISTORY_PER_BEACON];
+        changeOwners = new byte[slots * HISTORY_PER_BEACON];
+        historyHeads = new int[slots];
+        historySizes = new int[slots];
+        changeCounts = new int[slots];
+        owners = initialOwners.clone();
+        ownedSince = new long[slots];
+        closedHeldByBeacon = new long[slots * TEAM_COUNT];
+        
+        long now = clock.getAsLong();
+        for (int slot = 0; slot < slots; slot++) {
+            ownedSince[slot] = now;
+            append(slot, now, owners[slot]);
+        }
+    }
+    
+    /**
+     * Record a settled ownership change
+     */
+    public void record(int beaconIndex, TeamColor newOwner) {
+        if (endedAt >= 0) {
+            return;
+        }
+        int slot = beaconIndex + offset;
+        long now = clock.getAsLong();
+        close(slot, now);
+        owners[slot] = (byte) newOwner.getId();
+        ownedSince[slot] = now;
+        changeCounts[slot]++;
+        append(slot, now, owners[slot]);
+    }
+    
+    /**
+     * Stop the clock (game over); totals stay frozen at this moment
+     */
+    public void finish() {
+        if (endedAt < 0) {
+            endedAt = clock.getAsLong();
+        }
+    }
+    
+    private void close(int slot, long now) {
+        long held = now - ownedSince[slot];
+        closedHeld[owners[slot]] += held;
+        closedHeldByBeacon[slot * TEAM_COUNT + owners[slot]] += held;
+    }
+    
+    private void append(int slot, long time, byte owner) {
+        int base = slot * HISTORY_PER_BEACON;
+        int position = historyHeads[slot];
+        changeTimes[base + position] = time;
+        changeOwners[base + position] = owner;
+        historyHeads[slot] = (position + 1) % HISTORY_PER_BEACON;
+        if (historySizes[slot] < HISTORY_PER_BEACON) {
+            historySizes[slot]++;
+        }
+    }
+    
+    private long now() {
+        return endedAt >= 0 ? endedAt : clock.getAsLong();
+    }
+    
+    /**
+     * Total beacon-milliseconds a team has held, summed over all beacons
+     */
+    public long getHeldMillis(TeamColor team) {
+        long now = now();
+        long held = closedHeld[team.getId()];
+        for (int slot = 0; slot < owners.length; slot++) {
+            if (owners[slot] == team.getId()) {
+                held += now - ownedSince[slot];
+            }
+        }
+        return held;
+    }
+    
+    /**
+     * Milliseconds a team has held one beacon
+     */
+    public long getHeldMillis(int beaconIndex, TeamColor team) {
+        int slot = beaconIndex + offset;
+        long held = closedHeldByBeacon[slot * TEAM_COUNT + team.getId()];
+        if (owners[slot] == team.getId()) {
+            held += now() - ownedSince[slot];
+        }
+        return held;
+    }
+    
+    /**
+     * Number of times a beacon changed hands
+     */
+    public int getChangeCount(int beaconIndex) {
+        return changeCounts[beaconIndex + offset];
+    }
+    
+    /**
+     * Number of retained history entries for a beacon (the first is its owner at game start,
+     * until the ring buffer wraps)
+     */
+    public int getHistorySize(int beaconIndex) {
+        return historySizes[beaconIndex + offset];
+    }
+    
+    /**
+     * Game-clock time of a retained history entry (0 = oldest retained)
+     */
+    public long getHistoryTime(int beaconIndex, int entry) {
+        return changeTimes[historyPosition(beaconIndex + offset, entry)];
+    }
+    
+    /**
+     * Owner set by a retained history entry (0 = oldest retained)
+     */
+    public TeamColor getHistoryOwner(int beaconIndex, int entry) {
+        return TEAMS[changeOwners[historyPosition(beaconIndex + offset, entry)]];
+    }
+    
+    private int historyPosition(int slot, int entry) {
+        int oldest = (historyHeads[slot] - historySizes[slot] + HISTORY_PER_BEACON) % HISTORY_PER_BEACON;
+        return slot * HISTORY_PER_BEACON + (oldest + entry) % HISTORY_PER_BEACON;
+    }
+}
@@ -0,0 +1,252 @@
+package com.beaconwar.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+/**
+ * Samples every online player's position once per tick into primitive arrays.
+ * Each player keeps a stable slot until they quit, so fatigue, scoreboard,
+ * territory and death handling all read the same snapshot instead of calling
+ * player.getLocation() (which allocates) several times per tick.
+ * 
+ * Samples are also bucketed into a coarse X/Z grid so "who is near this point"
+ * queries only look at a few cells instead of every player.
+ */
+public class PlayerPositionSampler {
+    
+    private static final int INITIAL_CAPACITY = 32;
+    
+    // Grid cell edge (blocks, as a shift) and bucket count (power of two)
+    private static final int CELL_SHIFT = 4;
+    private static final int BUCKET_COUNT = 256;
+    
+    private final Map<UUID, Integer> slotsByPlayer = new HashMap<>();
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+    private int slotCount = 0;
+    
+    private Player[] players = new Player[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] zs = new double[INITIAL_CAPACITY];
+    private int[] worldIds = new int[INITIAL_CAPACITY];
+    
+    // Grid buckets: head slot per bucket, chained through nextInBucket (-1 = end)
+    private final int[] bucketHeads = new int[BUCKET_COUNT];
+    private int[] nextInBucket = new int[INITIAL_CAPACITY];
+    private int[] cellXs = new int[INITIAL_CAPACITY];
+    private int[] cellZs = new int[INITIAL_CAPACITY];
+    
+    // World id = index in this list (worlds are few and never unloaded mid-game)
+    private final List<World> worlds = new ArrayList<>();
+    
+    // Reused for every sample so Entity#getLocation(Location) never allocates
+    private final Location scratch = new Location(null, 0, 0, 0);
+    
+    public PlayerPositionSampler() {
+        Arrays.fill(bucketHeads, -1);
+    }
+    
+    /**
+     * Sample all online players. Called once at the start of every game tick.
+     */
+    public void sampleAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            sample(player);
+        }
+        rebuildGrid();
+    }
+    
+    private void rebuildGrid() {
+        Arrays.fill(bucketHeads, -1);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (players[slot] == null) {
+                continue;
+            }
+            int cellX = (int) Math.floor(xs[slot]) >> CELL_SHIFT;
+            int cellZ = (int) Math.floor(zs[slot]) >> CELL_SHIFT;
+            cellXs[slot] = cellX;
+            cellZs[slot] = cellZ;
+            int bucket = bucketOf(worldIds[slot], cellX, cellZ);
+            nextInBucket[slot] = bucketHeads[bucket];
+            bucketHeads[bucket] = slot;
+        }
+    }
+    
+    private static int bucketOf(int worldId, int cellX, int cellZ) {
+        int hash = worldId * 31 + cellX;
+        hash = hash * 0x9E3779B1 + cellZ;
+        hash ^= hash >>> 16;
+        return hash & (BUCKET_COUNT - 1);
+    }
+    
+    /**
+     * Refresh a single player's sample and return their slot.
+     * Use this for one-off events (e.g. death) that may happen between ticks.
+     */
+    public int sample(Player player) {
+        int slot = slotFor(player);
+        player.getLocation(scratch);
+        xs[slot] = scratch.getX();
+        ys[slot] = scratch.getY();
+        zs[slot] = scratch.getZ();
+        worldIds[slot] = getWorldId(scratch.getWorld());
+        return slot;
+    }
+    
+    /**
+     * Get a player's slot, sampling them first if they have never been seen.
+     */
+    public int slotOf(Player player) {
+        Integer slot = slotsByPlayer.get(player.getUniqueId());
+        if (slot == null) {
+            return sample(player);
+        }
+        return slot;
+    }
+    
+    /**
+     * Free a player's slot (on quit) so it can be reused.
+     */
+    public void release(Player player) {
+        Integer slot = slotsByPlayer.remove(player.getUniqueId());
+        if (slot == null) {
+            return;
+        }
+        players[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    private int slotFor(Player player) {
+        Integer existing = slotsByPlayer.get(player.getUniqueId());
+        if (existing != null) {
+            players[existing] = player; // Player object changes on rejoin
+            return existing;
+        }
+        
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == players.length) {
+                grow(players.length * 2);
+            }
+        }
+        
+        slotsByPlayer.put(player.getUniqueId(), slot);
+        players[slot] = player;
+        return slot;
+    }
+    
+    private void grow(int capacity) {
+        players = Arrays.copyOf(players, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        worldIds = Arrays.copyOf(worldIds, capacity);
+        nextInBucket = Arrays.copyOf(nextInBucket, capacity);
+        cellXs = Arrays.copyOf(cellXs, capacity);
+        cellZs = Arrays.copyOf(cellZs, capacity);
+    }
+    
+    /**
+     * Get the small integer id for a world (assigned on first sight)
+     */
+    public int getWorldId(World world) {
+        for (int i = 0; i < worlds.size(); i++) {
+            if (worlds.get(i) == world) {
+                return i;
+            }
+        }
+        worlds.add(world);
+        return worlds.size() - 1;
+    }
+    
+    public Player getPlayer(int slot) {
+        return players[slot];
+    }
+    
+    public double getX(int slot) {
+        return xs[slot];
+    }
+    
+    public double getY(int slot) {
+        return ys[slot];
+    }
+    
+    public double getZ(int slot) {
+        return zs[slot];
+    }
+    
+    public World getWorld(int slot) {
+        return worlds.get(worldIds[slot]);
+    }
+    
+    public boolean isInWorld(int slot, World world) {
+        return worlds.get(worldIds[slot]) == world;
+    }
+    
+    /**
+     * Squared distance from a slot to a point, or infinity if in a different world
+     */
+    public double distanceSquared(int slot, World world, double x, double y, double z) {
+        if (!isInWorld(slot, world)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double dx = xs[slot] - x;
+        double dy = ys[slot] - y;
+        double dz = zs[slot] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+    
+    /**
+     * Run an action for every sampled player within radius of a point (same world only).
+     * Uses the grid built by the last {@link #sampleAll()}.
+     */
+    public void forEachNearby(World world, double x, double y, double z, double radius, Consumer<Player> action) {
+        int worldId = getWorldId(world);
+        double radiusSquared = radius * radius;
+        int minCellX = (int) Math.floor(x - radius) >> CELL_SHIFT;
+        int maxCellX = (int) Math.floor(x + radius) >> CELL_SHIFT;
+        int minCellZ = (int) Math.floor(z - radius) >> CELL_SHIFT;
+        int maxCellZ = (int) Math.floor(z + radius) >> CELL_SHIFT;
+        
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                for (int slot = bucketHeads[bucketOf(worldId, cellX, cellZ)]; slot != -1; slot = nextInBucket[slot]) {
+                    // Buckets are shared between cells; only take this cell's members
+                    if (cellXs[slot] != cellX || cellZs[slot] != cellZ || worldIds[slot] != worldId) {
+                        continue;
+                    }
+                    Player player = players[slot];
+                    if (player != null && distanceSquared(slot, world, x, y, z) <= radiusSquared) {
+                        action.accept(player);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get every sampled player within radius of a point (same world only)
+     */
+    public List<Player> getNearbyPlayers(World world, double x, double y, double z, double radius) {
+        List<Player> nearby = new ArrayList<>();
+        forEachNearby(world, x, y, z, radius, nearby::add);
+        return nearby;
+    }
+}
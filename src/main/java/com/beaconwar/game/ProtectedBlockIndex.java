@@ -0,0 +1,151 @@
+package com.beaconwar.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.beaconwar.model.Beacon;
+
+/**
+ * Every protected block position of every beacon (beacon block, 3x3 emerald base, capture glass),
+ * per world, in an open-addressing hash of packed coordinates.
+ * Lookups are a hash and usually one probe with no allocation, which keeps very frequent events
+ * (fluid flow, physics, pistons) nearly free outside beacon structures.
+ */
+public class ProtectedBlockIndex {
+    
+    public static final byte NONE = 0;
+    public static final byte STRUCTURE = 1;
+    public static final byte GLASS = 2;
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    // Worlds are few; index = position in this list
+    private final List<World> worlds = new ArrayList<>();
+    private final List<Table> tables = new ArrayList<>();
+    
+    // Quick reject for anything outside the protected height band
+    private int minY = Integer.MAX_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    
+    public void add(Beacon beacon) {
+        Table table = tableFor(beacon.getWorld());
+        int x = beacon.getX();
+        int y = beacon.getY();
+        int z = beacon.getZ();
+        
+        table.put(BlockKeys.pack(x, y, z), STRUCTURE);
+        table.put(BlockKeys.pack(x, y + 1, z), GLASS);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                table.put(BlockKeys.pack(x + dx, y - 1, z + dz), STRUCTURE);
+            }
+        }
+        minY = Math.min(minY, y - 1);
+        maxY = Math.max(maxY, y + 1);
+    }
+    
+    public void clear() {
+        worlds.clear();
+        tables.clear();
+        minY = Integer.MAX_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+    
+    /**
+     * What is protected at a block position: NONE, STRUCTURE or GLASS
+     */
+    public byte get(World world, int x, int y, int z) {
+        if (y < minY || y > maxY) {
+            return NONE;
+        }
+        for (int i = 0; i < worlds.size(); i++) {
+            if (worlds.get(i) == world) {
+                return tables.get(i).get(BlockKeys.pack(x, y, z));
+            }
+        }
+        return NONE;
+    }
+    
+    public byte get(Block block) {
+        return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+    
+    public boolean isProtected(Block block) {
+        return get(block) != NONE;
+    }
+    
+    private Table tableFor(World world) {
+        for (int i = 0; i < worlds.size(); i++) {
+            if (worlds.get(i) == world) {
+                return tables.get(i);
+            }
+        }
+        worlds.add(world);
+        Table table = new Table();
+        tables.add(table);
+        return table;
+    }
+    
+    /**
+     * Linear-probing long -> byte map (keys are never removed)
+     */
+    private static final class Table {
+        private long[] keys = newKeys(64);
+        private byte[] values = new byte[64];
+        private int size = 0;
+        
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+        
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+        
+        byte get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return NONE;
+        }
+        
+        void put(long key, byte value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+        
+        private void grow() {
+            long[] oldKeys = keys;
+            byte[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new byte[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -5,55 +5,57 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * Manages team scores - 1 point per minute per beacon controlled
+ * Manages team scores - 1 point per beacon per score interval held.
+ * Scores are integrated exactly from the ownership timeline when read; the game only
+ * announces them once per score interval.
  */
 public class ScoreManager {
     
-    private final Map<TeamColor, Integer> scores = new HashMap<>();
+    private OwnershipTimeline timeline;
+    private long scoreIntervalMs = 60_000;
+    
+    /**
+     * Score the given timeline from now on
+     * @param scoreIntervalMs Beacon-milliseconds per point
+     */
+    public void track(OwnershipTimeline timeline, long scoreIntervalMs) {
+        this.timeline = timeline;
+        this.scoreIntervalMs = Math.max(1, scoreIntervalMs);
+    }
     
-    public ScoreManager() {
-        scores.put(TeamColor.RED, 0);
-        scores.put(TeamColor.BLUE, 0);
+    public int getScore(TeamColor team) {
+        if (timeline == null) {
+            return 0;
+        }
+        return (int) (timeline.getHeldMillis(team) / scoreIntervalMs);
     }
     
     /**
-     * Award points based on beacon control
+     * Broadcast the current scores to everyone
      */
-    public void awardPoints(Map<TeamColor, Integer> beaconCounts) {
-        int redBeacons = beaconCounts.get(TeamColor.RED);
-        int blueBeacons = beaconCounts.get(TeamColor.BLUE);
-        
-        if (redBeacons > 0) {
-            scores.put(TeamColor.RED, scores.get(TeamColor.RED) + redBeacons);
-        }
-        if (blueBeacons > 0) {
-            scores.put(TeamColor.BLUE, scores.get(TeamColor.BLUE) + blueBeacons);
-        }
-        
-        // Announce score update
+    public void announceScores() {
         Bukkit.broadcast(Component.text("[Beacon War] ", NamedTextColor.AQUA)
                 .append(Component.text("Score Update! ", NamedTextColor.YELLOW))
-                .append(Component.text("Red: " + scores.get(TeamColor.RED), NamedTextColor.RED))
+                .append(Component.text("Red: " + getScore(TeamColor.RED), NamedTextColor.RED))
                 .append(Component.text(" | ", NamedTextColor.GRAY))
-                .append(Component.text("Blue: " + scores.get(TeamColor.BLUE), NamedTextColor.BLUE)));
+                .append(Component.text("Blue: " + getScore(TeamColor.BLUE), NamedTextColor.BLUE)));
     }
     
-    public int getScore(TeamColor team) {
-        return scores.getOrDefault(team, 0);
+    /**
+     * Beacon-seconds a team has held (summed over all beacons)
+     */
+    public long getBeaconSeconds(TeamColor team) {
+        return timeline == null ? 0 : timeline.getHeldMillis(team) / 1000;
     }
     
     public void reset() {
-        scores.put(TeamColor.RED, 0);
-        scores.put(TeamColor.BLUE, 0);
+        timeline = null;
     }
     
     public TeamColor getWinner() {
-        int redScore = scores.get(TeamColor.RED);
-        int blueScore = scores.get(TeamColor.BLUE);
+        int redScore = getScore(TeamColor.RED);
+        int blueScore = getScore(TeamColor.BLUE);
         
         if (redScore > blueScore) {
             return TeamColor.RED;
@@ -63,4 +65,3 @@ public class ScoreManager {
         return TeamColor.NEUTRAL; // Tie
     }
 }
-
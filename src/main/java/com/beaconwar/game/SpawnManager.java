@@ -1,13 +1,24 @@
 package com.beaconwar.game;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
+import org.bukkit.World;
 
+import com.beaconwar.BeaconWarPlugin;
 import com.beaconwar.model.Beacon;
 import com.beaconwar.model.TeamColor;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
 /**
  * Manages team spawn points based on beacon control.
  * Formula: spawn_x = spacing * (beacons_controlled - total/2)
@@ -15,19 +26,33 @@ import com.beaconwar.model.TeamColor;
  */
 public class SpawnManager {
     
+    private static final int FALLBACK_ATTEMPTS = 100;
+    private static final int FALLBACK_STEP = 10;
+    
     private Location redSpawn;
     private Location blueSpawn;
     
+    // Spawns used when a team holds fewer than two beacons (computed once at setup)
+    private final Map<TeamColor, Location> fallbackSpawns = new EnumMap<>(TeamColor.class);
+    
+    private final BeaconWarPlugin plugin;
     private final BeaconManager beaconManager;
     private final int spacing;
+    private final ChunkTickets chunkTickets;
     
-    public SpawnManager(BeaconManager beaconManager, int spacing) {
+    // Set once the game has dropped this manager; pending fallback searches then do nothing
+    private boolean discarded = false;
+    
+    public SpawnManager(BeaconWarPlugin plugin, BeaconManager beaconManager, int spacing, ChunkTickets chunkTickets) {
+        this.plugin = plugin;
         this.beaconManager = beaconManager;
         this.spacing = spacing;
+        this.chunkTickets = chunkTickets;
     }
     
     /**
-     * Update spawn positions based on beacon control
+     * Update spawn positions based on beacon control.
+     * Only needs to run when a beacon changes hands.
      * Strategy: spawn at your second most extreme controlled beacon
      */
     public void updateSpawns() {
@@ -43,45 +68,146 @@ public class SpawnManager {
      */
     private Location findSecondFurthestTeamBeacon(TeamColor team, boolean positive) {
         List<Beacon> teamBeacons = beaconManager.getAllBeacons().stream()
-                .filter(b -> b.getOwner() == team)
+                .filter(b -> beaconManager.getSettledOwner(b) == team)
                 .sorted(Comparator.comparingInt(b -> positive ? -b.getIndex() : b.getIndex()))
                 .toList();
         
         if (teamBeacons.size() < 2) {
-           // Spawn at distance spacing behind the home beacon (5 for red, -5 for blue)
-           int homeBeaconIndex = (team == TeamColor.RED) ? 5 : -5;
-           Beacon homeBeacon = beaconManager.getBeacon(homeBeaconIndex);
-           Location loc = homeBeacon.getLocation().clone();
-           
-           // Direction to move: red moves +X, blue moves -X
-           int direction = (team == TeamColor.RED) ? 1 : -1;
-           loc.add(spacing * direction, 0, 0);
-           
-           // Ground search settings
-           boolean isNether = loc.getWorld().getEnvironment() == org.bukkit.World.Environment.NETHER;
-           int groundSearchY = isNether ? 100 : 200;
-           
-           // Try to find ground, moving 10 blocks farther back each attempt
-           for (int attempt = 0; attempt < 100; attempt++) {
-               int searchX = loc.getBlockX() + (attempt * 10 * direction);
-               Location groundLoc = BeaconPlacer.findGround(loc.getWorld(), searchX, groundSearchY, loc.getBlockZ());
-               if (groundLoc != null) {
-                   return groundLoc.add(0, 1, 0);
-               }
-           }
-           
-           // All 100 attempts failed - spawn on nether roof as last resort
-           org.bukkit.Bukkit.broadcast(net.kyori.adventure.text.Component.text("[Beacon War] ", net.kyori.adventure.text.format.NamedTextColor.RED)
-                   .append(net.kyori.adventure.text.Component.text("Warning: Could not find valid spawn ground for " + team.name() + " team. Spawning on Nether roof!", net.kyori.adventure.text.format.NamedTextColor.YELLOW)));
-           return new Location(loc.getWorld(), loc.getBlockX(), 128, loc.getBlockZ());
+            Location fallback = fallbackSpawns.get(team);
+            if (fallback != null) {
+                return fallback;
+            }
+            // Fallback search still running - use the home beacon meanwhile
+            Location loc = getHomeBeacon(team).getLocation();
+            loc.add(0, 2, 0);
+            return loc;
         }
         
         Beacon secondFurthest = teamBeacons.get(1);
-        Location loc = secondFurthest.getLocation().clone();
+        Location loc = secondFurthest.getLocation();
         loc.add(0, 2, 0); // Spawn 2 blocks above beacon
         return loc;
     }
     
+    /**
+     * Home beacon for a team (the outermost beacon: 5 for red, -5 for blue by default)
+     */
+    private Beacon getHomeBeacon(TeamColor team) {
+        List<Beacon> sorted = beaconManager.getSortedBeacons();
+        return (team == TeamColor.RED) ? sorted.get(sorted.size() - 1) : sorted.get(0);
+    }
+    
+    /**
+     * Compute the fallback spawn for both teams. Chunks are loaded asynchronously and the
+     * ground search runs against chunk snapshots off the main thread, so a nearly wiped-out
+     * team never costs thousands of synchronous block reads per tick.
+     */
+    public void prepareFallbackSpawns() {
+        prepareFallbackSpawn(TeamColor.RED);
+        prepareFallbackSpawn(TeamColor.BLUE);
+    }
+    
+    private void prepareFallbackSpawn(TeamColor team) {
+        // Spawn at distance spacing behind the home beacon
+        Location loc = getHomeBeacon(team).getLocation();
+        
+        // Direction to move: red moves +X, blue moves -X
+        int direction = (team == TeamColor.RED) ? 1 : -1;
+        loc.add(spacing * direction, 0, 0);
+        
+        World world = loc.getWorld();
+        int baseX = loc.getBlockX();
+        int z = loc.getBlockZ();
+        
+        // Ground search settings
+        boolean isNether = world.getEnvironment() == World.Environment.NETHER;
+        int groundSearchY = isNether ? 100 : 200;
+        
+        // Search columns grouped by chunk, in attempt order (moving 10 blocks farther back each attempt)
+        Map<Integer, List<Integer>> columnsByChunk = new LinkedHashMap<>();
+        for (int attempt = 0; attempt < FALLBACK_ATTEMPTS; attempt++) {
+            int searchX = baseX + (attempt * FALLBACK_STEP * direction);
+            columnsByChunk.computeIfAbsent(searchX >> 4, cx -> new ArrayList<>()).add(searchX);
+        }
+        
+        FallbackSearch search = new FallbackSearch(team, world, baseX, z, world.getMinHeight(), groundSearchY, 
+                new ArrayList<>(columnsByChunk.values()));
+        searchFallbackChunk(search, 0);
+    }
+    
+    private record FallbackSearch(TeamColor team, World world, int baseX, int z, int minHeight, int groundSearchY, 
+            List<List<Integer>> columnsByChunk) {}
+    
+    /**
+     * Load and search one chunk at a time; the next chunk is only loaded if this one has no ground
+     */
+    private void searchFallbackChunk(FallbackSearch search, int chunkIndex) {
+        if (discarded) {
+            return;
+        }
+        if (chunkIndex >= search.columnsByChunk().size()) {
+            applyFallbackSpawn(search, null);
+            return;
+        }
+        
+        List<Integer> columns = search.columnsByChunk().get(chunkIndex);
+        search.world().getChunkAtAsync(columns.get(0) >> 4, search.z() >> 4).thenAccept(chunk -> {
+            if (discarded) {
+                return;
+            }
+            // Chunk futures complete on the main thread; snapshots must be taken there
+            ChunkSnapshot snapshot = chunk.getChunkSnapshot();
+            
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                Location result = null;
+                for (int searchX : columns) {
+                    int groundY = BeaconPlacer.findGround(snapshot, search.minHeight(), searchX, search.groundSearchY(), search.z());
+                    if (groundY != Integer.MIN_VALUE) {
+                        result = new Location(search.world(), searchX, groundY + 1, search.z());
+                        break;
+                    }
+                }
+                
+                Location spawn = result;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (spawn != null) {
+                        applyFallbackSpawn(search, spawn);
+                    } else {
+                        searchFallbackChunk(search, chunkIndex + 1);
+                    }
+                });
+            });
+        });
+    }
+    
+    private void applyFallbackSpawn(FallbackSearch search, Location spawn) {
+        // This manager was replaced (reset) while searching
+        if (discarded) {
+            return;
+        }
+        TeamColor team = search.team();
+        if (spawn == null) {
+            // All 100 attempts failed - spawn on nether roof as last resort
+            Bukkit.broadcast(Component.text("[Beacon War] ", NamedTextColor.RED)
+                    .append(Component.text("Warning: Could not find valid spawn ground for " + team.name() + " team. Spawning on Nether roof!", NamedTextColor.YELLOW)));
+            spawn = new Location(search.world(), search.baseX(), 128, search.z());
+        }
+        fallbackSpawns.put(team, spawn);
+        
+        // Respawns must not land in (or load) an unloaded chunk
+        chunkTickets.hold(spawn);
+        
+        // The team may already be relying on the placeholder
+        updateSpawns();
+    }
+    
+    /**
+     * Stop any fallback spawn search still running; call when this manager is replaced or reset
+     */
+    public void discard() {
+        discarded = true;
+    }
+    
     /**
      * Find the beacon closest to the target X coordinate
      */
@@ -93,12 +219,12 @@ public class SpawnManager {
         }
         
         Beacon closest = sortedBeacons.stream()
-                .min(Comparator.comparingInt(b -> 
-                        Math.abs(b.getLocation().getBlockX() - targetX)))
+                .min(Comparator.comparingInt(b ->
+                        Math.abs(b.getX() - targetX)))
                 .orElse(sortedBeacons.get(0));
         
         // Return location slightly above beacon
-        Location loc = closest.getLocation().clone();
+        Location loc = closest.getLocation();
         loc.add(0, 2, 0);
         return loc;
     }
@@ -122,4 +248,3 @@ public class SpawnManager {
         };
     }
 }
-
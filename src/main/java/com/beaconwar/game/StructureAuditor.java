@@ -0,0 +1,107 @@
+package com.beaconwar.game;
+
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.beaconwar.BeaconWarPlugin;
+import com.beaconwar.model.Beacon;
+
+/**
+ * Walks every beacon structure a few blocks per tick and puts back anything that changed
+ * (physics, pistons, admin mistakes): the 3x3 emerald base, the beacon block and the beam column
+ * above the glass. A full pass is spread over many ticks so the cost per tick stays flat.
+ * Castle walls are not audited; they are meant to be fought over.
+ */
+public class StructureAuditor {
+    
+    // Per beacon: 9 base blocks, the beacon, then the beam column from 2 above the beacon
+    private static final int BASE_BLOCKS = 9;
+    private static final int BEAM_START = BASE_BLOCKS + 1;
+    
+    private final BeaconWarPlugin plugin;
+    private final List<Beacon> beacons;
+    
+    // Cursor: current beacon and position within its structure
+    private int beaconCursor = 0;
+    private int blockCursor = 0;
+    private int restoredThisPass = 0;
+    
+    public StructureAuditor(BeaconWarPlugin plugin, BeaconManager beaconManager) {
+        this.plugin = plugin;
+        this.beacons = beaconManager.getSortedBeacons();
+    }
+    
+    /**
+     * Check up to budget blocks, continuing where the last call stopped
+     */
+    public void auditStep(int budget) {
+        if (beacons.isEmpty()) {
+            return;
+        }
+        
+        for (int checked = 0; checked < budget; checked++) {
+            if (beaconCursor >= beacons.size()) {
+                finishPass();
+            }
+            
+            Beacon beacon = beacons.get(beaconCursor);
+            World world = beacon.getWorld();
+            int structureSize = BEAM_START + Math.max(0, world.getMaxHeight() - (beacon.getY() + 2));
+            if (blockCursor >= structureSize) {
+                beaconCursor++;
+                blockCursor = 0;
+                continue;
+            }
+            
+            // Never load chunks for an audit; chunk tickets keep beacon chunks loaded anyway
+            if (!beacon.isChunkLoaded()) {
+                beaconCursor++;
+                blockCursor = 0;
+                continue;
+            }
+            
+            audit(beacon, world, blockCursor++);
+        }
+    }
+    
+    private void audit(Beacon beacon, World world, int position) {
+        int x = beacon.getX();
+        int y = beacon.getY();
+        int z = beacon.getZ();
+        
+        Block block;
+        Material expected;
+        if (position < BASE_BLOCKS) {
+            block = world.getBlockAt(x + position % 3 - 1, y - 1, z + position / 3 - 1);
+            expected = Material.EMERALD_BLOCK;
+        } else if (position == BASE_BLOCKS) {
+            block = world.getBlockAt(x, y, z);
+            expected = Material.BEACON;
+        } else {
+            // Beam column above the capture glass must stay clear; cave and void air count as clear
+            block = world.getBlockAt(x, y + 2 + (position - BEAM_START), z);
+            if (!block.getType().isAir()) {
+                block.setType(Material.AIR, false);
+                restoredThisPass++;
+            }
+            return;
+        }
+        
+        if (block.getType() != expected) {
+            block.setType(expected, false);
+            restoredThisPass++;
+        }
+    }
+    
+    private void finishPass() {
+        if (restoredThisPass > 0) {
+            plugin.getLogger().info("Structure audit restored " + restoredThisPass + " beacon block(s)");
+        }
+        restoredThisPass = 0;
+        beaconCursor = 0;
+        blockCursor = 0;
+    }
+}
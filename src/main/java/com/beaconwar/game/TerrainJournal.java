@@ -0,0 +1,240 @@
+package com.beaconwar.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Original block data of every block setup changes, so /bw reset can put the terrain back.
+ * Each entry is a world index, a palette index and varint coordinate deltas from the
+ * previous entry, so consecutive column edits cost a few bytes each. On disk the journal
+ * is gzipped and survives restarts until the terrain has been restored.
+ */
+public class TerrainJournal {
+    
+    private static final int MAGIC = 0x42575452; // "BWTR"
+    private static final int VERSION = 1;
+    
+    private final List<String> worlds = new ArrayList<>();
+    private final List<String> palette = new ArrayList<>();
+    private final Map<String, Integer> paletteIndex = new HashMap<>();
+    
+    private ByteArrayOutputStream entries = new ByteArrayOutputStream();
+    private int entryCount = 0;
+    private int lastX = 0;
+    private int lastY = 0;
+    private int lastZ = 0;
+    
+    /**
+     * Record a block's current data (call before changing it)
+     */
+    public void record(Block block) {
+        writeVarInt(worldIndex(block.getWorld().getName()));
+        
+        String data = block.getBlockData().getAsString();
+        Integer index = paletteIndex.get(data);
+        if (index == null) {
+            index = palette.size();
+            palette.add(data);
+            paletteIndex.put(data, index);
+        }
+        writeVarInt(index);
+        
+        writeVarInt(zigZag(block.getX() - lastX));
+        writeVarInt(zigZag(block.getY() - lastY));
+        writeVarInt(zigZag(block.getZ() - lastZ));
+        lastX = block.getX();
+        lastY = block.getY();
+        lastZ = block.getZ();
+        entryCount++;
+    }
+    
+    public int size() {
+        return entryCount;
+    }
+    
+    private int worldIndex(String name) {
+        int index = worlds.indexOf(name);
+        if (index < 0) {
+            worlds.add(name);
+            index = worlds.size() - 1;
+        }
+        return index;
+    }
+    
+    /**
+     * Queue every recorded block's original data, newest first, so a block changed twice
+     * ends up as it was before the first change. Entries in worlds that aren't loaded are skipped.
+     */
+    public void restoreInto(BlockEditQueue queue) {
+        World[] worldRefs = new World[worlds.size()];
+        for (int i = 0; i < worldRefs.length; i++) {
+            worldRefs[i] = Bukkit.getWorld(worlds.get(i));
+        }
+        BlockData[] datas = new BlockData[palette.size()];
+        for (int i = 0; i < datas.length; i++) {
+            try {
+                datas[i] = Bukkit.createBlockData(palette.get(i));
+            } catch (IllegalArgumentException e) {
+                // Unknown to this server version; leave those blocks as they are
+            }
+        }
+        
+        int[] worldIds = new int[entryCount];
+        int[] dataIds = new int[entryCount];
+        int[] xs = new int[entryCount];
+        int[] ys = new int[entryCount];
+        int[] zs = new int[entryCount];
+        
+        ByteArrayInputStream in = new ByteArrayInputStream(entries.toByteArray());
+        int x = 0;
+        int y = 0;
+        int z = 0;
+        for (int i = 0; i < entryCount; i++) {
+            worldIds[i] = readVarInt(in);
+            dataIds[i] = readVarInt(in);
+            x += unZigZag(readVarInt(in));
+            y += unZigZag(readVarInt(in));
+            z += unZigZag(readVarInt(in));
+            xs[i] = x;
+            ys[i] = y;
+            zs[i] = z;
+        }
+        
+        for (int i = entryCount - 1; i >= 0; i--) {
+            World world = worldRefs[worldIds[i]];
+            BlockData data = datas[dataIds[i]];
+            if (world != null && data != null) {
+                queue.set(world, xs[i], ys[i], zs[i], data, false);
+            }
+        }
+    }
+    
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(worlds.size());
+            for (String world : worlds) {
+                out.writeUTF(world);
+            }
+            out.writeInt(palette.size());
+            for (String data : palette) {
+                out.writeUTF(data);
+            }
+            out.writeInt(entryCount);
+            out.writeInt(lastX);
+            out.writeInt(lastY);
+            out.writeInt(lastZ);
+            out.writeInt(entries.size());
+            entries.writeTo(out);
+        }
+    }
+    
+    /**
+     * Load a saved journal; more blocks can be recorded onto it
+     */
+    public static TerrainJournal load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a terrain journal: " + file.getName());
+            }
+            TerrainJournal journal = new TerrainJournal();
+            int worldCount = in.readInt();
+            for (int i = 0; i < worldCount; i++) {
+                journal.worlds.add(in.readUTF());
+            }
+            int paletteSize = in.readInt();
+            for (int i = 0; i < paletteSize; i++) {
+                String data = in.readUTF();
+                journal.paletteIndex.put(data, journal.palette.size());
+                journal.palette.add(data);
+            }
+            journal.entryCount = in.readInt();
+            journal.lastX = in.readInt();
+            journal.lastY = in.readInt();
+            journal.lastZ = in.readInt();
+            int byteCount = in.readInt();
+            if (journal.entryCount < 0 || byteCount < 0) {
+                throw new IOException("Corrupt terrain journal: " + file.getName());
+            }
+            byte[] bytes = new byte[byteCount];
+            in.readFully(bytes);
+            if (!journal.matches(bytes)) {
+                throw new IOException("Corrupt terrain journal: " + file.getName());
+            }
+            journal.entries = new ByteArrayOutputStream(bytes.length);
+            journal.entries.writeBytes(bytes);
+            return journal;
+        }
+    }
+    
+    /**
+     * Check that the entry bytes hold exactly entryCount entries with valid world and palette indexes
+     */
+    private boolean matches(byte[] bytes) {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                int world = readVarInt(in);
+                int data = readVarInt(in);
+                if (world < 0 || world >= worlds.size() || data < 0 || data >= palette.size()) {
+                    return false;
+                }
+                readVarInt(in);
+                readVarInt(in);
+                readVarInt(in);
+            }
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        return in.available() == 0;
+    }
+    
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            entries.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        entries.write(value);
+    }
+    
+    private static int readVarInt(ByteArrayInputStream in) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            if (b == -1 || shift > 28) {
+                throw new IllegalStateException("Truncated terrain journal entry");
+            }
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+    
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+    
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,89 +1,194 @@
 package com.beaconwar.game;
 
+import com.beaconwar.events.PlayerTerritoryChangeEvent;
 import com.beaconwar.model.Beacon;
 import com.beaconwar.model.TeamColor;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * Manages territory boundaries based on beacon control
+ * Manages territory boundaries based on beacon control.
+ * Frontier coordinates are cached and only recomputed when a beacon changes hands;
+ * players' territories are tracked per sampler slot so crossings fire a
+ * {@link PlayerTerritoryChangeEvent} instead of being recomputed by every consumer.
  */
 public class TerritoryManager {
     
+    // Territory membership bits (red and blue territory can overlap)
+    public static final int RED_BIT = 1;
+    public static final int BLUE_BIT = 2;
+    private static final byte UNKNOWN = -1;
+    
     private final BeaconManager beaconManager;
     private final int spacing;
     
+    // Cached frontier, as arc length along the beacon line (valid only if the team has any beacon)
+    private boolean redHasFront;
+    private boolean blueHasFront;
+    private double redFrontArc;
+    private double blueFrontArc;
+    private BeaconLine beaconLine;
+    private World beaconWorld;
+    
+    // Last known territory mask per sampler slot
+    private byte[] slotMasks = new byte[0];
+    private Player[] slotPlayers = new Player[0];
+    
     public TerritoryManager(BeaconManager beaconManager, int spacing) {
         this.beaconManager = beaconManager;
         this.spacing = spacing;
     }
     
     /**
-     * Get the frontmost beacon X coordinate for a team
-     * Red = most positive X, Blue = most negative X
+     * Recompute the frontier coordinates. Call after setup and whenever a beacon changes hands.
      */
-    private Integer getFrontmostBeaconX(TeamColor team) {
-        List<Beacon> teamBeacons = beaconManager.getAllBeacons().stream()
-                .filter(b -> b.getOwner() == team)
-                .toList();
+    public void refreshFrontier() {
+        redHasFront = false;
+        blueHasFront = false;
+        beaconLine = beaconManager.getBeaconLine();
         
-        if (teamBeacons.isEmpty()) {
-            return null;
-        }
-        
-        if (team == TeamColor.RED) {
-            // Red's front = most negative X
-            return teamBeacons.stream()
-                    .map(b -> b.getLocation().getBlockX())
-                    .min(Integer::compareTo)
-                    .orElse(null);
-        } else {
-            // Blue's front = most positive X
-            return teamBeacons.stream()
-                    .map(b -> b.getLocation().getBlockX())
-                    .max(Integer::compareTo)
-                    .orElse(null);
+        for (Beacon beacon : beaconManager.getAllBeacons()) {
+            double arc = beaconLine.arcOfBeacon(beacon.getIndex());
+            TeamColor owner = beaconManager.getSettledOwner(beacon);
+            if (owner == TeamColor.RED) {
+                // Red's front = closest to the negative end of the line
+                redFrontArc = redHasFront ? Math.min(redFrontArc, arc) : arc;
+                redHasFront = true;
+            } else if (owner == TeamColor.BLUE) {
+                // Blue's front = closest to the positive end of the line
+                blueFrontArc = blueHasFront ? Math.max(blueFrontArc, arc) : arc;
+                blueHasFront = true;
+            }
+            beaconWorld = beacon.getWorld();
         }
     }
     
     /**
-     * Check if a location is in a team's territory
-     * Red territory: x > frontMostBeaconX - spacing/2
-     * Blue territory: x < frontMostBeaconX + spacing/2
+     * Check if a location is in a team's territory.
+     * Positions are projected onto the beacon line (s = arc length from the negative end):
+     * Red territory: s > frontMostBeaconS - spacing/2
+     * Blue territory: s < frontMostBeaconS + spacing/2
      */
     public boolean isInTerritory(Location loc, TeamColor team) {
-        if (team == TeamColor.NEUTRAL) {
-            return false;
+        return isInTerritory(loc.getX(), loc.getZ(), team);
+    }
+    
+    /**
+     * Check if a position (e.g. a sampled player position) is in a team's territory
+     */
+    public boolean isInTerritory(double x, double z, TeamColor team) {
+        return (territoryMask(x, z) & teamBit(team)) != 0;
+    }
+    
+    /**
+     * Get which territory a location is in (can be NEUTRAL if in no one's territory)
+     */
+    public TeamColor getTerritoryAt(Location loc) {
+        return getTerritoryAt(loc.getX(), loc.getZ());
+    }
+    
+    /**
+     * Get which territory a position is in
+     */
+    public TeamColor getTerritoryAt(double x, double z) {
+        return primaryTerritory(territoryMask(x, z));
+    }
+    
+    private int territoryMask(double x, double z) {
+        if (beaconLine == null) {
+            return 0;
         }
-        
-        Integer frontX = getFrontmostBeaconX(team);
-        if (frontX == null) {
-            return false; // No beacons = no territory
+        double arc = beaconLine.project(x, z);
+        double halfSpacing = spacing / 2;
+        int mask = 0;
+        if (redHasFront && arc > redFrontArc - halfSpacing) {
+            mask |= RED_BIT;
         }
+        if (blueHasFront && arc < blueFrontArc + halfSpacing) {
+            mask |= BLUE_BIT;
+        }
+        return mask;
+    }
+    
+    /**
+     * Recompute territory for every sampled online player, firing change events on crossings
+     */
+    public void updatePlayerTerritories(PlayerPositionSampler sampler) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            updatePlayer(sampler, sampler.slotOf(player));
+        }
+    }
+    
+    /**
+     * Recompute one player's territory from their current sample.
+     * Players outside the beacon world are in no territory.
+     * @return The player's territory mask
+     */
+    public int updatePlayer(PlayerPositionSampler sampler, int slot) {
+        if (slot >= slotMasks.length) {
+            int capacity = Math.max(slot + 1, slotMasks.length * 2);
+            int oldLength = slotMasks.length;
+            slotMasks = Arrays.copyOf(slotMasks, capacity);
+            slotPlayers = Arrays.copyOf(slotPlayers, capacity);
+            Arrays.fill(slotMasks, oldLength, capacity, UNKNOWN);
+        }
+        
+        Player player = sampler.getPlayer(slot);
+        int mask = sampler.isInWorld(slot, beaconWorld) ? territoryMask(sampler.getX(slot), sampler.getZ(slot)) : 0;
         
-        int playerX = loc.getBlockX();
-        int halfSpacing = spacing / 2;
+        // A reused slot starts fresh for its new player
+        if (slotPlayers[slot] != player) {
+            slotPlayers[slot] = player;
+            slotMasks[slot] = UNKNOWN;
+        }
         
-        if (team == TeamColor.RED) {
-            return playerX > frontX - halfSpacing;
-        } else {
-            return playerX < frontX + halfSpacing;
+        int previous = slotMasks[slot];
+        slotMasks[slot] = (byte) mask;
+        if (previous != UNKNOWN && previous != mask) {
+            Bukkit.getPluginManager().callEvent(new PlayerTerritoryChangeEvent(player, previous, mask));
         }
+        return mask;
     }
     
     /**
-     * Get which territory a location is in (can be NEUTRAL if in no one's territory)
+     * Cached check (as of the last update) whether a sampled player is in a team's territory
      */
-    public TeamColor getTerritoryAt(Location loc) {
-        if (isInTerritory(loc, TeamColor.RED)) {
+    public boolean isInTerritory(int slot, TeamColor team) {
+        return slot < slotMasks.length && slotMasks[slot] != UNKNOWN && (slotMasks[slot] & teamBit(team)) != 0;
+    }
+    
+    /**
+     * Cached territory (as of the last update) of a sampled player
+     */
+    public TeamColor getTerritory(int slot) {
+        if (slot >= slotMasks.length || slotMasks[slot] == UNKNOWN) {
+            return TeamColor.NEUTRAL;
+        }
+        return primaryTerritory(slotMasks[slot]);
+    }
+    
+    public static int teamBit(TeamColor team) {
+        return switch (team) {
+            case RED -> RED_BIT;
+            case BLUE -> BLUE_BIT;
+            default -> 0;
+        };
+    }
+    
+    /**
+     * Red wins ties where both territories overlap
+     */
+    public static TeamColor primaryTerritory(int mask) {
+        if ((mask & RED_BIT) != 0) {
             return TeamColor.RED;
         }
-        if (isInTerritory(loc, TeamColor.BLUE)) {
+        if ((mask & BLUE_BIT) != 0) {
             return TeamColor.BLUE;
         }
         return TeamColor.NEUTRAL;
     }
 }
-
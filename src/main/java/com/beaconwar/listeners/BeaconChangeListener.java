@@ -2,6 +2,9 @@ package com.beaconwar.listeners;
 
 import com.beaconwar.BeaconWarPlugin;
 import com.beaconwar.game.GameManager;
+import com.beaconwar.game.GamePhase;
+import com.beaconwar.game.MaterialTables;
+import com.beaconwar.game.ProtectedBlockIndex;
 import com.beaconwar.model.Beacon;
 import com.beaconwar.model.TeamColor;
 import net.kyori.adventure.text.Component;
@@ -9,22 +12,41 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Handles events related to beacon changes and player respawning
  */
 public class BeaconChangeListener implements Listener {
     
+    private static final long NOTICE_COOLDOWN_MS = 2000;
+    
     private final BeaconWarPlugin plugin;
     
+    // Last time each player was sent a capture lock / rate limit notice
+    private final Map<UUID, Long> lastNotice = new HashMap<>();
+    
+    // Last accepted capture glass change per player (rate limit)
+    private final Map<UUID, Long> lastGlassAction = new HashMap<>();
+    
     public BeaconChangeListener(BeaconWarPlugin plugin) {
         this.plugin = plugin;
     }
@@ -55,6 +77,18 @@ public class BeaconChangeListener implements Listener {
             return;
         }
         
+        // Capture glass is locked during the mining phase
+        if (isLockedCaptureGlass(placedBlock)) {
+            event.setCancelled(true);
+            sendCaptureLockMessage(player);
+            return;
+        }
+        
+        if (isCaptureGlass(placedBlock) && !allowGlassAction(player)) {
+            event.setCancelled(true);
+            return;
+        }
+        
         // Check if placing near any beacon
         if (isNearBeaconProtectedZone(placedBlock.getLocation(), type)) {
             event.setCancelled(true);
@@ -68,6 +102,17 @@ public class BeaconChangeListener implements Listener {
      */
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
+        if (isLockedCaptureGlass(event.getBlock())) {
+            event.setCancelled(true);
+            sendCaptureLockMessage(event.getPlayer());
+            return;
+        }
+        
+        if (isCaptureGlass(event.getBlock()) && !allowGlassAction(event.getPlayer())) {
+            event.setCancelled(true);
+            return;
+        }
+        
         if (isProtectedBeaconBlock(event.getBlock().getLocation())) {
             event.setCancelled(true);
             event.getPlayer().sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
@@ -80,7 +125,7 @@ public class BeaconChangeListener implements Listener {
      */
     @EventHandler
     public void onEntityExplode(EntityExplodeEvent event) {
-        event.blockList().removeIf(block -> isProtectedBeaconBlock(block.getLocation()));
+        event.blockList().removeIf(block -> isProtectedBeaconBlock(block.getLocation()) || isLockedCaptureGlass(block));
     }
     
     /**
@@ -88,7 +133,59 @@ public class BeaconChangeListener implements Listener {
      */
     @EventHandler
     public void onBlockExplode(BlockExplodeEvent event) {
-        event.blockList().removeIf(block -> isProtectedBeaconBlock(block.getLocation()));
+        event.blockList().removeIf(block -> isProtectedBeaconBlock(block.getLocation()) || isLockedCaptureGlass(block));
+    }
+    
+    /**
+     * Check if a block is a beacon's capture glass while captures are locked (mining phase).
+     * Cancelling here means the glass never changes, so there is nothing to detect and revert next tick.
+     */
+    private boolean isLockedCaptureGlass(Block block) {
+        return plugin.getGameManager().getCurrentPhase() == GamePhase.MINING && isCaptureGlass(block);
+    }
+    
+    /**
+     * Check if a block is the capture glass above a beacon
+     */
+    private boolean isCaptureGlass(Block block) {
+        GameManager gameManager = plugin.getGameManager();
+        if (!gameManager.areBeaconsInitialized()) {
+            return false;
+        }
+        return gameManager.getBeaconManager().getBeaconAtGlass(block.getWorld(), block.getX(), block.getY(), block.getZ()) != null;
+    }
+    
+    /**
+     * Per-player rate limit on capture glass changes, so one player can't flicker glass
+     * into hundreds of block updates per second
+     */
+    private boolean allowGlassAction(Player player) {
+        long cooldown = plugin.getConfig().getLong("glass-action-cooldown-ms", 500);
+        long now = System.currentTimeMillis();
+        Long last = lastGlassAction.get(player.getUniqueId());
+        if (last != null && now - last < cooldown) {
+            sendThrottledNotice(player, Component.text("Slow down! Wait a moment before changing beacon glass again.", NamedTextColor.YELLOW));
+            return false;
+        }
+        lastGlassAction.put(player.getUniqueId(), now);
+        return true;
+    }
+    
+    private void sendCaptureLockMessage(Player player) {
+        sendThrottledNotice(player, Component.text("Cannot capture beacons during Mining Period!", NamedTextColor.YELLOW));
+    }
+    
+    /**
+     * Send a notice at most once per cooldown per player (players spam glass)
+     */
+    private void sendThrottledNotice(Player player, Component notice) {
+        long now = System.currentTimeMillis();
+        Long last = lastNotice.get(player.getUniqueId());
+        if (last != null && now - last < NOTICE_COOLDOWN_MS) {
+            return;
+        }
+        lastNotice.put(player.getUniqueId(), now);
+        player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED).append(notice));
     }
     
     /**
@@ -103,30 +200,28 @@ public class BeaconChangeListener implements Listener {
         int protectionRadius = plugin.getConfig().getInt("beacon-protection-radius", 5);
         
         for (Beacon beacon : gameManager.getBeaconManager().getAllBeacons()) {
-            Location beaconLoc = beacon.getLocation();
-            
             // Check if in same world
-            if (!loc.getWorld().equals(beaconLoc.getWorld())) {
+            if (loc.getWorld() != beacon.getWorld()) {
                 continue;
             }
             
             // Exception 1: Blocks below beacon y-level are always allowed
-            if (loc.getBlockY() < beaconLoc.getBlockY()) {
+            if (loc.getBlockY() < beacon.getY()) {
                 continue;
             }
             
             // Calculate horizontal distance (ignore Y)
-            double dx = loc.getBlockX() - beaconLoc.getBlockX();
-            double dz = loc.getBlockZ() - beaconLoc.getBlockZ();
+            double dx = loc.getBlockX() - beacon.getX();
+            double dz = loc.getBlockZ() - beacon.getZ();
             double horizontalDistance = Math.sqrt(dx * dx + dz * dz);
             
             // Check if within protected radius
             if (horizontalDistance <= protectionRadius) {
                 // Exception 2: Stained glass directly above beacon (exactly 1 block up, same x/z)
-                if (isStainedGlass(blockType) && 
-                    loc.getBlockX() == beaconLoc.getBlockX() &&
-                    loc.getBlockZ() == beaconLoc.getBlockZ() &&
-                    loc.getBlockY() == beaconLoc.getBlockY() + 1) {
+                if (MaterialTables.isStainedGlass(blockType) && 
+                    loc.getBlockX() == beacon.getX() &&
+                    loc.getBlockZ() == beacon.getZ() &&
+                    loc.getBlockY() == beacon.getY() + 1) {
                     continue;
                 }
                 
@@ -138,13 +233,6 @@ public class BeaconChangeListener implements Listener {
         return false;
     }
     
-    /**
-     * Check if material is stained glass
-     */
-    private boolean isStainedGlass(Material material) {
-        return material.name().endsWith("STAINED_GLASS");
-    }
-    
     /**
      * Check if a block location is part of a protected beacon structure.
      * Protected blocks are:
@@ -152,44 +240,78 @@ public class BeaconChangeListener implements Listener {
      * - The 3x3 emerald block base (one block below beacon, within ±1 x/z)
      */
     private boolean isProtectedBeaconBlock(Location loc) {
+        ProtectedBlockIndex index = getProtectedBlocks();
+        return index != null && 
+                index.get(loc.getWorld(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()) == ProtectedBlockIndex.STRUCTURE;
+    }
+    
+    /**
+     * Index of protected beacon blocks, or null before setup
+     */
+    private ProtectedBlockIndex getProtectedBlocks() {
         GameManager gameManager = plugin.getGameManager();
-        
         if (!gameManager.areBeaconsInitialized()) {
-            return false;
+            return null;
         }
-        
-        int blockX = loc.getBlockX();
-        int blockY = loc.getBlockY();
-        int blockZ = loc.getBlockZ();
-        
-        for (Beacon beacon : gameManager.getBeaconManager().getAllBeacons()) {
-            Location beaconLoc = beacon.getLocation();
-            
-            // Check if in same world
-            if (!loc.getWorld().equals(beaconLoc.getWorld())) {
-                continue;
-            }
-            
-            int beaconX = beaconLoc.getBlockX();
-            int beaconY = beaconLoc.getBlockY();
-            int beaconZ = beaconLoc.getBlockZ();
-            
-            // Check if this is the beacon block itself
-            if (blockX == beaconX && blockY == beaconY && blockZ == beaconZ) {
-                return true;
-            }
-            
-            // Check if this is part of the 3x3 emerald base (one block below beacon)
-            if (blockY == beaconY - 1 &&
-                blockX >= beaconX - 1 && blockX <= beaconX + 1 &&
-                blockZ >= beaconZ - 1 && blockZ <= beaconZ + 1) {
+        return gameManager.getBeaconManager().getProtectedBlocks();
+    }
+    
+    /**
+     * Stop lava and water flowing into beacon structures or the capture glass slot
+     */
+    @EventHandler(ignoreCancelled = true)
+    public void onFluidFlow(BlockFromToEvent event) {
+        ProtectedBlockIndex index = getProtectedBlocks();
+        if (index != null && index.isProtected(event.getToBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    /**
+     * Stop pistons moving beacon blocks or glass, or pushing anything into them
+     */
+    @EventHandler(ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        ProtectedBlockIndex index = getProtectedBlocks();
+        if (index == null) {
+            return;
+        }
+        // The piston head extends into the cell in front of the piston
+        if (index.isProtected(event.getBlock().getRelative(event.getDirection()))
+                || movesProtectedBlock(index, event.getBlocks(), event.getDirection())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        // getDirection() is the pull direction here, so the piston's own neighbour in it is its back
+        ProtectedBlockIndex index = getProtectedBlocks();
+        if (index != null && movesProtectedBlock(index, event.getBlocks(), event.getDirection())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    private boolean movesProtectedBlock(ProtectedBlockIndex index, List<Block> moved, BlockFace direction) {
+        for (Block block : moved) {
+            if (index.isProtected(block) || index.isProtected(block.getRelative(direction))) {
                 return true;
             }
         }
-        
         return false;
     }
     
+    /**
+     * Block physics updates on beacon structures and glass
+     */
+    @EventHandler(ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        ProtectedBlockIndex index = getProtectedBlocks();
+        if (index != null && index.isProtected(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
     /**
      * Handle player respawning based on team
      */
@@ -215,5 +337,14 @@ public class BeaconChangeListener implements Listener {
                     .append(Component.text("Respawning at team spawn", team.getChatColor())));
         }
     }
+    
+    /**
+     * Forget a player's notice and rate limit timestamps when they leave
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID id = event.getPlayer().getUniqueId();
+        lastNotice.remove(id);
+        lastGlassAction.remove(id);
+    }
 }
-
@@ -3,11 +3,9 @@ package com.beaconwar.listeners;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -23,6 +21,8 @@ import org.bukkit.potion.PotionEffectType;
 import com.beaconwar.BeaconWarPlugin;
 import com.beaconwar.game.BeaconManager;
 import com.beaconwar.game.GamePhase;
+import com.beaconwar.game.MaterialTables;
+import com.beaconwar.game.PlayerPositionSampler;
 import com.beaconwar.model.TeamColor;
 
 /**
@@ -33,18 +33,6 @@ public class DeathListener implements Listener {
     private final BeaconWarPlugin plugin;
     private final Random random = new Random();
     
-    // Items that should never drop on death
-    private static final Set<Material> NEVER_DROP_ITEMS = Set.of(
-        Material.BOW,
-        Material.CROSSBOW,
-        Material.BLUE_STAINED_GLASS,
-        Material.RED_STAINED_GLASS,
-        Material.COMPASS,
-        Material.BLUE_WOOL,
-        Material.RED_WOOL,
-        Material.IRON_PICKAXE
-    );
-    
     public DeathListener(BeaconWarPlugin plugin) {
         this.plugin = plugin;
     }
@@ -88,7 +76,7 @@ public class DeathListener implements Listener {
             }
             
             // Check if this item should never drop
-            boolean neverDrop = NEVER_DROP_ITEMS.contains(item.getType());
+            boolean neverDrop = MaterialTables.isNeverDrop(item.getType());
             
             int totalAmount = item.getAmount();
             int dropAmount;
@@ -161,11 +149,15 @@ public class DeathListener implements Listener {
      * Players in a different dimension than the beacons always keep their inventory.
      */
     private double calculateDropProbability(Player player) {
+        // Refresh the position sample - deaths can happen between game ticks
+        PlayerPositionSampler sampler = plugin.getGameManager().getPositionSampler();
+        int slot = sampler.sample(player);
+        
         // Players in a different dimension than the beacons keep everything
         BeaconManager beaconManager = plugin.getGameManager().getBeaconManager();
         if (beaconManager != null && beaconManager.getBeacon(0) != null) {
-            World beaconWorld = beaconManager.getBeacon(0).getLocation().getWorld();
-            if (!player.getWorld().equals(beaconWorld)) {
+            World beaconWorld = beaconManager.getBeacon(0).getWorld();
+            if (!sampler.isInWorld(slot, beaconWorld)) {
                 return 0.0;
             }
         }
@@ -209,8 +201,9 @@ public class DeathListener implements Listener {
             return 0.0;
         }
         
-        double playerX = player.getLocation().getX();
-        double beaconIndex = beaconManager.getInterpolatedBeaconIndex(playerX);
+        PlayerPositionSampler sampler = plugin.getGameManager().getPositionSampler();
+        int slot = sampler.slotOf(player);
+        double beaconIndex = beaconManager.getInterpolatedBeaconIndex(sampler.getX(slot), sampler.getZ(slot));
         
         // Calculate distance into enemy territory
         // Blue pushes toward positive indices, Red pushes toward negative indices
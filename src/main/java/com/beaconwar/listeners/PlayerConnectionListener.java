@@ -33,8 +33,9 @@ public class PlayerConnectionListener implements Listener {
     
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
-        // No action needed - team assignments persist in GameManager maps
-        // Player will be restored when they rejoin
+        // Team assignments persist in GameManager maps - player will be restored when they rejoin
+        // Only the position sampler slot is freed
+        plugin.getGameManager().getPositionSampler().release(event.getPlayer());
     }
 }
 
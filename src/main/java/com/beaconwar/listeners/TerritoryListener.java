@@ -0,0 +1,56 @@
+package com.beaconwar.listeners;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import com.beaconwar.BeaconWarPlugin;
+import com.beaconwar.events.PlayerTerritoryChangeEvent;
+import com.beaconwar.game.GameManager;
+import com.beaconwar.game.GamePhase;
+import com.beaconwar.model.TeamColor;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+/**
+ * Tells players when they enter or leave their keep-inventory zone (territory drop mode)
+ */
+public class TerritoryListener implements Listener {
+    
+    private final BeaconWarPlugin plugin;
+    
+    public TerritoryListener(BeaconWarPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler
+    public void onTerritoryChange(PlayerTerritoryChangeEvent event) {
+        // Only territory mode ties keep inventory to territory
+        String dropMode = plugin.getConfig().getString("drop-mode", "territory");
+        if (!dropMode.equalsIgnoreCase("territory")) {
+            return;
+        }
+        
+        GameManager gameManager = plugin.getGameManager();
+        Player player = event.getPlayer();
+        TeamColor team = gameManager.getPlayerTeam(player);
+        if (team == TeamColor.NEUTRAL || gameManager.getCurrentPhase() != GamePhase.CAPTURING) {
+            return;
+        }
+        
+        boolean wasHome = event.wasInTerritory(team);
+        boolean isHome = event.isInTerritory(team);
+        if (wasHome == isHome) {
+            return;
+        }
+        
+        if (isHome) {
+            player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.AQUA)
+                    .append(Component.text("Entered home territory - you keep your inventory on death.", NamedTextColor.GREEN)));
+        } else {
+            player.sendMessage(Component.text("[Beacon War] ", NamedTextColor.RED)
+                    .append(Component.text("Left home territory - items may drop on death!", NamedTextColor.YELLOW)));
+        }
+    }
+}
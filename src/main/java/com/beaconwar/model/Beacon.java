@@ -2,21 +2,34 @@ package com.beaconwar.model;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 
 /**
  * Represents a single beacon in the game.
  * No more cursed scoreboards as variables!
+ * 
+ * Position is stored as final block coordinates so hot paths can read it without
+ * cloning a Location; the glass block above the beacon is resolved once and reused.
  */
 public class Beacon {
     
     private final int index;
-    private final Location location;
+    private final World world;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final Block glassBlock;
     private TeamColor owner;
     private TeamColor previousOwner;
     
     public Beacon(int index, Location location) {
         this.index = index;
-        this.location = location;
+        this.world = location.getWorld();
+        this.x = location.getBlockX();
+        this.y = location.getBlockY();
+        this.z = location.getBlockZ();
+        this.glassBlock = world.getBlockAt(x, y + 1, z);
         this.owner = TeamColor.NEUTRAL;
         this.previousOwner = TeamColor.NEUTRAL;
     }
@@ -25,10 +38,40 @@ public class Beacon {
         return index;
     }
     
+    /**
+     * A fresh Location for the beacon block. Prefer the coordinate getters in hot paths.
+     */
     public Location getLocation() {
-        return location.clone();
+        return new Location(world, x, y, z);
+    }
+    
+    public World getWorld() {
+        return world;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
     }
     
+    public int getZ() {
+        return z;
+    }
+    
+    /**
+     * The stained glass block directly above the beacon
+     */
+    public Block getGlassBlock() {
+        return glassBlock;
+    }
+    
+    /**
+     * The owner shown by the glass, which may still be inside the capture debounce window.
+     * Use BeaconManager.getSettledOwner for anything cached across captures.
+     */
     public TeamColor getOwner() {
         return owner;
     }
@@ -55,37 +98,36 @@ public class Beacon {
     }
     
     /**
-     * Check the glass block above the beacon to determine current owner
+     * Check the glass block above the beacon to determine current owner.
+     * The previous (settled) owner is kept until the change is validated or reverted,
+     * so glass flicked through several colours still compares against the real owner.
      */
     public void updateOwnerFromGlass() {
-        Location glassLocation = location.clone().add(0, 1, 0);
-        Material material = glassLocation.getBlock().getType();
-        
-        TeamColor newOwner = switch (material) {
-            case RED_STAINED_GLASS -> TeamColor.RED;
-            case BLUE_STAINED_GLASS -> TeamColor.BLUE;
-            default -> TeamColor.NEUTRAL;
-        };
-        
-        if (newOwner != owner) {
-            setOwner(newOwner);
+        // Never force a synchronous chunk load; an unloaded beacon can't have changed
+        if (!isChunkLoaded()) {
+            return;
         }
+        
+        owner = ownerOf(glassBlock.getType());
     }
     
     /**
      * Initialize ownership from glass block (for initial setup)
      */
     public void initializeOwnerFromGlass() {
-        Location glassLocation = location.clone().add(0, 1, 0);
-        Material material = glassLocation.getBlock().getType();
-        
-        TeamColor initialOwner = switch (material) {
+        initializeOwner(ownerOf(glassBlock.getType()));
+    }
+    
+    public boolean isChunkLoaded() {
+        return world.isChunkLoaded(x >> 4, z >> 4);
+    }
+    
+    private static TeamColor ownerOf(Material material) {
+        return switch (material) {
             case RED_STAINED_GLASS -> TeamColor.RED;
             case BLUE_STAINED_GLASS -> TeamColor.BLUE;
             default -> TeamColor.NEUTRAL;
         };
-        
-        initializeOwner(initialOwner);
     }
     
     /**
@@ -93,20 +135,17 @@ public class Beacon {
      */
     public void revertGlass() {
         owner = previousOwner;
-        Location glassLocation = location.clone().add(0, 1, 0);
-        glassLocation.getBlock().setType(previousOwner.getGlassMaterial());
+        glassBlock.setType(previousOwner.getGlassMaterial());
     }
     
     /**
      * Set the glass block to match current owner
      */
     public void updateGlass() {
-        Location glassLocation = location.clone().add(0, 1, 0);
-        glassLocation.getBlock().setType(owner.getGlassMaterial());
+        glassBlock.setType(owner.getGlassMaterial());
     }
     
     public boolean hasOwnerChanged() {
         return owner != previousOwner;
     }
 }
-